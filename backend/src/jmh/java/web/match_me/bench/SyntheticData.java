@@ -0,0 +1,96 @@
+package web.match_me.bench;
+
+import web.match_me.entity.Connection;
+import web.match_me.entity.Profile;
+import web.match_me.entity.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Seeded generators for benchmark inputs. Same seed, same data - so runs from
+// different releases measure the same workload.
+public final class SyntheticData {
+
+    public static final String[] CITIES = { "Tallinn", "Tartu", "Narva", "Pärnu", "Helsinki", "Riga" };
+    private static final double[][] CITY_COORDINATES = {
+            { 59.437, 24.754 }, { 58.378, 26.729 }, { 59.377, 28.190 },
+            { 58.385, 24.497 }, { 60.170, 24.938 }, { 56.950, 24.105 } };
+
+    private static final String[] INTERESTS = { "Java", "Spring", "React", "TypeScript", "Kotlin", "Go",
+            "Rust", "Python", "SQL", "Docker", "Kubernetes", "AWS", "Design", "Marketing", "Sales",
+            "Finance", "Data Science", "Machine Learning", "Security", "Mobile", "DevOps", "QA",
+            "Product", "UX", "Embedded", "Game Dev", "Blockchain", "Networking", "Linux", "C++" };
+    private static final String[] HOBBIES = { "Hiking", "Chess", "Cooking", "Running", "Cycling",
+            "Photography", "Music", "Reading", "Climbing", "Yoga", "Gaming", "Travel", "Painting",
+            "Swimming", "Dancing", "Football" };
+    private static final String[] MUSIC = { "Bachelor", "Master", "PhD", "Bootcamp", "Self-taught" };
+    private static final String[] FOOD = { "English", "Estonian", "Russian", "Finnish", "German" };
+    private static final String[] TRAVEL = { "AWS Certified", "Scrum Master", "CKA", "None" };
+
+    private final SplittableRandom random;
+
+    public SyntheticData(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    public User user(long id) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername("user" + id);
+        user.setEmail("user" + id + "@bench.local");
+        return user;
+    }
+
+    public Profile profile(User user) {
+        int city = random.nextInt(CITIES.length);
+        Profile profile = new Profile();
+        profile.setId(user.getId());
+        profile.setUser(user);
+        profile.setFirstName("First" + user.getId());
+        profile.setLastName("Last" + user.getId());
+        profile.setBio("Synthetic profile " + user.getId());
+        profile.setGender(random.nextBoolean() ? "Male" : "Female");
+        profile.setInterests(pick(INTERESTS, 3 + random.nextInt(5)));
+        profile.setHobbies(pick(HOBBIES, 1 + random.nextInt(4)));
+        profile.setMusicTaste(MUSIC[random.nextInt(MUSIC.length)]);
+        profile.setFoodPreference(FOOD[random.nextInt(FOOD.length)]);
+        profile.setTravelPreference(TRAVEL[random.nextInt(TRAVEL.length)]);
+        profile.setLocation(CITIES[city]);
+        // Scatter within ~30 km of the city centre so both distance bands are hit
+        profile.setLatitude(CITY_COORDINATES[city][0] + (random.nextDouble() - 0.5) * 0.5);
+        profile.setLongitude(CITY_COORDINATES[city][1] + (random.nextDouble() - 0.5) * 0.5);
+        profile.setProfilePictureUrl("https://example.com/avatars/" + user.getId() + ".png");
+        return profile;
+    }
+
+    public List<Profile> profiles(int count) {
+        List<Profile> profiles = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            profiles.add(profile(user(i)));
+        }
+        return profiles;
+    }
+
+    public Connection connection(long id, User requester, User receiver) {
+        Connection connection = new Connection();
+        connection.setId(id);
+        connection.setRequester(requester);
+        connection.setReceiver(receiver);
+        connection.setStatus(Connection.ConnectionStatus.ACCEPTED);
+        connection.setCreatedAt(LocalDateTime.of(2025, 1, 1, 12, 0).plusMinutes(id));
+        return connection;
+    }
+
+    private List<String> pick(String[] values, int count) {
+        List<String> picked = new ArrayList<>(count);
+        while (picked.size() < count) {
+            String value = values[random.nextInt(values.length)];
+            if (!picked.contains(value)) {
+                picked.add(value);
+            }
+        }
+        return picked;
+    }
+}
@@ -0,0 +1,66 @@
+package web.match_me.controller;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import web.match_me.bench.SyntheticData;
+import web.match_me.entity.Connection;
+import web.match_me.entity.Profile;
+import web.match_me.entity.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// In-memory part of GET /connections: building the response maps once the data is loaded
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConnectionCardsBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    private int connections;
+
+    private User owner;
+    private List<Connection> rows;
+    private List<Profile> profiles;
+
+    @Setup
+    public void setUp() {
+        SyntheticData data = new SyntheticData(3);
+        owner = data.user(0);
+        rows = new ArrayList<>(connections);
+        profiles = new ArrayList<>(connections);
+        for (int i = 1; i <= connections; i++) {
+            User partner = data.user(i);
+            rows.add(i % 2 == 0 ? data.connection(i, owner, partner) : data.connection(i, partner, owner));
+            // Every tenth partner has no profile - exercises the default branch
+            profiles.add(i % 10 == 0 ? null : data.profile(partner));
+        }
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> connectionCards() {
+        LocalDateTime lastMessage = LocalDateTime.of(2025, 6, 1, 9, 30);
+        List<Map<String, Object>> cards = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            Connection c = rows.get(i);
+            User partner = c.getRequester().equals(owner) ? c.getReceiver() : c.getRequester();
+            cards.add(ConnectionCards.connectionCard(c, partner, profiles.get(i), lastMessage, i % 3, i, lastMessage));
+        }
+        return cards;
+    }
+}
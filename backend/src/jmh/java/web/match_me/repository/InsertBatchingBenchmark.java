@@ -0,0 +1,143 @@
+package web.match_me.repository;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import web.match_me.service.PooledIdAllocator;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+
+// Rows/s for the statements Hibernate emits per id strategy, on a dismissal-shaped table:
+//   identity - one INSERT + generated-key read per row (what GenerationType.IDENTITY forces)
+//   pooled   - one nextval per 50 ids, INSERTs sent as JDBC batches of 50 (SEQUENCE + batch_size)
+// Defaults to in-memory H2, which hides network round trips; point it at Postgres for real numbers:
+//   -Djmh.args="InsertBatching -p jdbcUrl=jdbc:postgresql://localhost/bench?reWriteBatchedInserts=true -p user=... -p password=..."
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InsertBatchingBenchmark {
+
+    private static final int ROWS = 1000;
+    private static final int BATCH_SIZE = 50;
+
+    @Param({ "jdbc:h2:mem:bench;MODE=PostgreSQL;DB_CLOSE_DELAY=-1" })
+    public String jdbcUrl;
+
+    @Param({ "sa" })
+    public String user;
+
+    @Param({ "" })
+    public String password;
+
+    private Connection connection;
+    private PooledIdAllocator ids;
+    private long userId;
+
+    @Setup
+    public void setUp() throws Exception {
+        connection = DriverManager.getConnection(jdbcUrl, user, password);
+        try (Statement st = connection.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS bench_identity");
+            st.execute("DROP TABLE IF EXISTS bench_pooled");
+            st.execute("DROP SEQUENCE IF EXISTS bench_pooled_seq");
+            st.execute("CREATE TABLE bench_identity (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                    + "user_id BIGINT NOT NULL, dismissed_user_id BIGINT NOT NULL, dismissed_at TIMESTAMP NOT NULL)");
+            st.execute("CREATE TABLE bench_pooled (id BIGINT PRIMARY KEY, "
+                    + "user_id BIGINT NOT NULL, dismissed_user_id BIGINT NOT NULL, dismissed_at TIMESTAMP NOT NULL)");
+            st.execute("CREATE SEQUENCE bench_pooled_seq INCREMENT BY " + BATCH_SIZE);
+        }
+        connection.setAutoCommit(false);
+        ids = new PooledIdAllocator(new JdbcTemplate(new SingleConnectionDataSource(connection, true)),
+                "bench_pooled_seq", BATCH_SIZE);
+    }
+
+    @Setup(Level.Iteration)
+    public void clear() throws Exception {
+        try (Statement st = connection.createStatement()) {
+            st.execute("DELETE FROM bench_identity");
+            st.execute("DELETE FROM bench_pooled");
+        }
+        connection.commit();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        try (Statement st = connection.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS bench_identity");
+            st.execute("DROP TABLE IF EXISTS bench_pooled");
+            st.execute("DROP SEQUENCE IF EXISTS bench_pooled_seq");
+        }
+        connection.commit();
+        connection.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long identity() throws Exception {
+        long last = 0;
+        long owner = ++userId;
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO bench_identity (user_id, dismissed_user_id, dismissed_at) VALUES (?, ?, ?)",
+                Statement.RETURN_GENERATED_KEYS)) {
+            for (int i = 0; i < ROWS; i++) {
+                bind(ps, 1, owner, i);
+                ps.executeUpdate();
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    keys.next();
+                    last = keys.getLong(1);
+                }
+            }
+        }
+        connection.commit();
+        return last;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long pooled() throws Exception {
+        long last = 0;
+        long owner = ++userId;
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO bench_pooled (id, user_id, dismissed_user_id, dismissed_at) VALUES (?, ?, ?, ?)")) {
+            for (int i = 0; i < ROWS; i++) {
+                last = ids.next();
+                ps.setLong(1, last);
+                bind(ps, 2, owner, i);
+                ps.addBatch();
+                if ((i + 1) % BATCH_SIZE == 0)
+                    ps.executeBatch();
+            }
+            ps.executeBatch();
+        }
+        connection.commit();
+        return last;
+    }
+
+    private static void bind(PreparedStatement ps, int from, long owner, int i) throws Exception {
+        ps.setLong(from, owner);
+        ps.setLong(from + 1, i + 1);
+        ps.setTimestamp(from + 2, new Timestamp(System.currentTimeMillis()));
+    }
+}
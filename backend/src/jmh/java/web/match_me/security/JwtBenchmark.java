@@ -0,0 +1,91 @@
+package web.match_me.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.security.core.userdetails.UserDetails;
+import web.match_me.service.CustomUserDetailsService;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+// Per-request token work done by AuthTokenFilter and the WebSocket CONNECT interceptor
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+
+    private JwtUtil jwtUtil;
+    private TokenCache tokenCache;
+    private String token;
+
+    @Setup
+    public void setUp() throws Exception {
+        jwtUtil = new JwtUtil();
+        set("jwtSecret", "benchmark-secret-benchmark-secret-benchmark-secret-0123456789");
+        set("jwtExpirationMs", 86_400_000);
+        jwtUtil.init();
+        token = jwtUtil.generateToken("user1@bench.local");
+
+        tokenCache = new TokenCache();
+        set(tokenCache, "jwtUtil", jwtUtil);
+        set(tokenCache, "maxEntries", 50_000);
+        // No database: the lookup only happens on the first (miss) call
+        set(tokenCache, "userDetailsService", new CustomUserDetailsService(null) {
+            @Override
+            public UserDetails loadUserByUsername(String email) {
+                return new UserDetailsImpl(1L, email, "hash");
+            }
+        });
+        tokenCache.authenticate(token);
+    }
+
+    @Benchmark
+    public boolean validateJwtToken() {
+        return jwtUtil.validateJwtToken(token);
+    }
+
+    @Benchmark
+    public String getUserFromToken() {
+        return jwtUtil.getUserFromToken(token);
+    }
+
+    // The old per-request path: validate, then parse again for the subject
+    @Benchmark
+    public String validateThenGetUser() {
+        return jwtUtil.validateJwtToken(token) ? jwtUtil.getUserFromToken(token) : null;
+    }
+
+    // Cache miss: one parse for both the check and the subject
+    @Benchmark
+    public String parseClaimsOnce() {
+        return jwtUtil.parseClaims(token).getSubject();
+    }
+
+    // Cache hit: token hash + map lookup, no signature check
+    @Benchmark
+    public UserDetailsImpl tokenCacheHit() {
+        return tokenCache.authenticate(token);
+    }
+
+    private void set(String name, Object value) throws Exception {
+        set(jwtUtil, name, value);
+    }
+
+    private static void set(Object target, String name, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
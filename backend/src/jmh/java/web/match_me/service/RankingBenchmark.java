@@ -0,0 +1,70 @@
+package web.match_me.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import web.match_me.bench.SyntheticData;
+import web.match_me.entity.Profile;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongPredicate;
+
+// Top-K selection over a candidate pool, sequential and fork-join, with an exclusion
+// bitmap sized like a heavy user's (connections + dismissals ~ 5% of the pool).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RankingBenchmark {
+
+    @Param({ "1000", "10000", "100000" })
+    private int candidates;
+
+    private ProfileFeatures current;
+    private List<ProfileFeatures> pool;
+    private LongPredicate excluded;
+    private CandidateRanker sequential;
+    private CandidateRanker parallel;
+
+    @Setup
+    public void setUp() {
+        FeatureDictionary dictionary = new FeatureDictionary();
+        List<Profile> profiles = new SyntheticData(7).profiles(candidates + 1);
+        current = ProfileFeatures.compile(profiles.get(0), dictionary);
+        pool = new ArrayList<>(candidates);
+        for (int i = 1; i < profiles.size(); i++) {
+            pool.add(ProfileFeatures.compile(profiles.get(i), dictionary));
+        }
+
+        UserIdBitmap bitmap = new UserIdBitmap();
+        for (long id = 1; id <= candidates; id += 20) {
+            bitmap.add(id);
+        }
+        excluded = bitmap::contains;
+
+        sequential = new CandidateRanker(10, Integer.MAX_VALUE);
+        parallel = new CandidateRanker(10, 0);
+    }
+
+    @Benchmark
+    public List<Long> rankSequential() {
+        return sequential.rank(current, pool, excluded);
+    }
+
+    @Benchmark
+    public List<Long> rankParallel() {
+        return parallel.rank(current, pool, excluded);
+    }
+}
@@ -0,0 +1,52 @@
+package web.match_me.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import web.match_me.bench.SyntheticData;
+import web.match_me.entity.Profile;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Pairwise compatibility score - what RecommendationService.calculateScore used to do,
+// now ScoringKernel.score over compiled ProfileFeatures.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScoringBenchmark {
+
+    private static final int PAIRS = 1024;
+
+    private ProfileFeatures[] left;
+    private ProfileFeatures[] right;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        FeatureDictionary dictionary = new FeatureDictionary();
+        List<Profile> profiles = new SyntheticData(42).profiles(2 * PAIRS);
+        left = new ProfileFeatures[PAIRS];
+        right = new ProfileFeatures[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            left[i] = ProfileFeatures.compile(profiles.get(i), dictionary);
+            right[i] = ProfileFeatures.compile(profiles.get(PAIRS + i), dictionary);
+        }
+    }
+
+    @Benchmark
+    public double score() {
+        int i = next++ & (PAIRS - 1);
+        return ScoringKernel.score(left[i], right[i]);
+    }
+}
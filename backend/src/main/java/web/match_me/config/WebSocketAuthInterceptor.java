@@ -3,25 +3,33 @@ package web.match_me.config;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.stomp.StompCommand;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.messaging.support.ChannelInterceptor;
 import org.springframework.messaging.support.MessageHeaderAccessor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
-import web.match_me.security.JwtUtil;
-import web.match_me.service.CustomUserDetailsService;
+import web.match_me.security.TokenCache;
+import web.match_me.security.UserDetailsImpl;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 @Component
 public class WebSocketAuthInterceptor implements ChannelInterceptor {
 
-    @Autowired
-    private JwtUtil jwtUtil;
+    // Highest seq the client has seen per conversation, "partnerId:seq,partnerId:seq,...", for
+    // catch-up after a reconnect (see ChatController.replayMessages). Present but empty means
+    // the client knows of no conversations yet.
+    public static final String RESUME_AFTER_HEADER = "resume-after";
+    // Far more than any real client sends; a longer cursor is ignored (the replay reports it)
+    private static final int MAX_CURSOR_ENTRIES = 10_000;
+    private static final String RESUME_AFTER_ATTRIBUTE = "resumeAfter";
 
     @Autowired
-    private CustomUserDetailsService userDetailsService;
+    private TokenCache tokenCache;
 
     @Override
     public Message<?> preSend(Message<?> message, MessageChannel channel) {
@@ -31,16 +39,53 @@ public class WebSocketAuthInterceptor implements ChannelInterceptor {
             String authHeader = accessor.getFirstNativeHeader("Authorization");
             if (authHeader != null && authHeader.startsWith("Bearer ")) {
                 String token = authHeader.substring(7);
-                if (jwtUtil.validateJwtToken(token)) {
-                    String username = jwtUtil.getUserFromToken(token);
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                UserDetailsImpl userDetails = tokenCache.authenticate(token);
+                if (userDetails != null) {
                     UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                             userDetails, null, userDetails.getAuthorities());
 
                     accessor.setUser(authentication);
                 }
             }
+            Map<Long, Long> resumeAfter = parseCursor(accessor.getFirstNativeHeader(RESUME_AFTER_HEADER));
+            if (resumeAfter != null && accessor.getSessionAttributes() != null) {
+                accessor.getSessionAttributes().put(RESUME_AFTER_ATTRIBUTE, resumeAfter);
+            }
         }
         return message;
     }
+
+    // Cursor from the SUBSCRIBE frame, else the one given on CONNECT
+    @SuppressWarnings("unchecked")
+    public static Map<Long, Long> resumeCursor(SimpMessageHeaderAccessor accessor) {
+        Map<Long, Long> cursor = parseCursor(accessor.getFirstNativeHeader(RESUME_AFTER_HEADER));
+        if (cursor == null && accessor.getSessionAttributes() != null) {
+            cursor = (Map<Long, Long>) accessor.getSessionAttributes().get(RESUME_AFTER_ATTRIBUTE);
+        }
+        return cursor;
+    }
+
+    // Null when absent or malformed - treated like a fresh client
+    private static Map<Long, Long> parseCursor(String value) {
+        if (value == null)
+            return null;
+        Map<Long, Long> cursor = new LinkedHashMap<>();
+        if (value.isBlank())
+            return cursor;
+        String[] entries = value.split(",");
+        if (entries.length > MAX_CURSOR_ENTRIES)
+            return null;
+        try {
+            for (String entry : entries) {
+                int colon = entry.indexOf(':');
+                if (colon < 0)
+                    return null;
+                cursor.merge(Long.parseLong(entry.substring(0, colon).trim()),
+                        Long.parseLong(entry.substring(colon + 1).trim()), Math::max);
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return cursor;
+    }
 }
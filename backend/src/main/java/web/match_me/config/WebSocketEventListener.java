@@ -2,9 +2,12 @@ package web.match_me.config;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.messaging.SessionConnectedEvent;
 import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import web.match_me.security.UserDetailsImpl;
 import web.match_me.service.PresenceService;
 
 import java.security.Principal;
@@ -17,17 +20,17 @@ public class WebSocketEventListener {
 
     @EventListener
     public void handleWebSocketConnectListener(SessionConnectedEvent event) {
+        // The interceptor put the loaded UserDetailsImpl on CONNECT - no lookup by email
         Principal user = event.getUser();
-        if (user != null) {
-            presenceService.userConnected(user.getName());
+        if (user instanceof Authentication authentication
+                && authentication.getPrincipal() instanceof UserDetailsImpl userDetails) {
+            String sessionId = SimpMessageHeaderAccessor.getSessionId(event.getMessage().getHeaders());
+            presenceService.userConnected(sessionId, userDetails.getId());
         }
     }
 
     @EventListener
     public void handleWebSocketDisconnectListener(SessionDisconnectEvent event) {
-        Principal user = event.getUser();
-        if (user != null) {
-            presenceService.userDisconnected(user.getName());
-        }
+        presenceService.userDisconnected(event.getSessionId());
     }
 }
@@ -2,14 +2,13 @@ package web.match_me.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import web.match_me.entity.Connection;
 import web.match_me.entity.User;
-import web.match_me.repository.UserRepository;
+import web.match_me.security.CurrentUser;
 import web.match_me.service.ConnectionService;
 import web.match_me.service.ProfileService;
-import web.match_me.service.RecommendationService;
+import web.match_me.service.RecommendationDeckService;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -19,9 +18,6 @@ import java.util.stream.Collectors;
 @RequestMapping("/api/v1")
 public class APIController {
 
-    @Autowired
-    private UserRepository userRepository;
-
     @Autowired
     private ProfileService profileService;
 
@@ -29,16 +25,16 @@ public class APIController {
     private ConnectionService connectionService;
 
     @Autowired
-    private RecommendationService recommendationService;
+    private RecommendationDeckService deckService;
 
     @Autowired
     private web.match_me.service.DataSeedingService dataSeedingService;
 
     // Helper: Validate Access (Self or Connected)
-    private boolean canViewProfile(User requester, User target) {
-        if (requester.getId().equals(target.getId()))
+    private boolean canViewProfile(Long requesterId, Long targetId) {
+        if (requesterId.equals(targetId))
             return true;
-        return connectionService.areConnected(requester, target);
+        return connectionService.areConnected(requesterId, targetId);
     }
 
     // 0. /seed
@@ -50,11 +46,9 @@ public class APIController {
 
     // 1. /users/{id}
     @GetMapping("/users/{id}")
-    public ResponseEntity<Map<String, Object>> getUserBasic(@PathVariable Long id, Authentication authentication) {
-        User requester = userRepository.findByEmail(authentication.getName()).orElseThrow();
-        User target = userRepository.findById(id).orElse(null);
-
-        if (target == null || !canViewProfile(requester, target)) {
+    public ResponseEntity<Map<String, Object>> getUserBasic(@PathVariable Long id, @CurrentUser Long requesterId) {
+        // Unknown ids aren't connected and have no profile - 404 either way, no users lookup
+        if (!canViewProfile(requesterId, id)) {
             return ResponseEntity.notFound().build();
         }
 
@@ -71,11 +65,9 @@ public class APIController {
 
     // 2. /users/{id}/profile
     @GetMapping("/users/{id}/profile")
-    public ResponseEntity<Map<String, Object>> getUserProfile(@PathVariable Long id, Authentication authentication) {
-        User requester = userRepository.findByEmail(authentication.getName()).orElseThrow();
-        User target = userRepository.findById(id).orElse(null);
-
-        if (target == null || !canViewProfile(requester, target)) {
+    public ResponseEntity<Map<String, Object>> getUserProfile(@PathVariable Long id, @CurrentUser Long requesterId) {
+        // Unknown ids aren't connected and have no profile - 404 either way, no users lookup
+        if (!canViewProfile(requesterId, id)) {
             return ResponseEntity.notFound().build();
         }
 
@@ -92,11 +84,9 @@ public class APIController {
 
     // 3. /users/{id}/bio
     @GetMapping("/users/{id}/bio")
-    public ResponseEntity<Map<String, Object>> getUserBio(@PathVariable Long id, Authentication authentication) {
-        User requester = userRepository.findByEmail(authentication.getName()).orElseThrow();
-        User target = userRepository.findById(id).orElse(null);
-
-        if (target == null || !canViewProfile(requester, target)) {
+    public ResponseEntity<Map<String, Object>> getUserBio(@PathVariable Long id, @CurrentUser Long requesterId) {
+        // Unknown ids aren't connected and have no profile - 404 either way, no users lookup
+        if (!canViewProfile(requesterId, id)) {
             return ResponseEntity.notFound().build();
         }
 
@@ -118,11 +108,10 @@ public class APIController {
 
     // 4. /me Shortcuts
     @GetMapping("/me")
-    public ResponseEntity<Map<String, Object>> getMe(Authentication authentication) {
-        User user = userRepository.findByEmail(authentication.getName()).orElseThrow();
+    public ResponseEntity<Map<String, Object>> getMe(@CurrentUser Long userId) {
         // Self is always allowed, so we directly call logic similar to getUserBasic but
         // for self
-        return profileService.getProfileByUserId(user.getId())
+        return profileService.getProfileByUserId(userId)
                 .map(p -> {
                     Map<String, Object> map = new HashMap<>();
                     map.put("id", p.getUser().getId());
@@ -134,9 +123,8 @@ public class APIController {
     }
 
     @GetMapping("/me/profile")
-    public ResponseEntity<Map<String, Object>> getMeProfile(Authentication authentication) {
-        User user = userRepository.findByEmail(authentication.getName()).orElseThrow();
-        return profileService.getProfileByUserId(user.getId())
+    public ResponseEntity<Map<String, Object>> getMeProfile(@CurrentUser Long userId) {
+        return profileService.getProfileByUserId(userId)
                 .map(p -> {
                     Map<String, Object> map = new HashMap<>();
                     map.put("id", p.getUser().getId());
@@ -148,9 +136,8 @@ public class APIController {
     }
 
     @GetMapping("/me/bio")
-    public ResponseEntity<Map<String, Object>> getMeBio(Authentication authentication) {
-        User user = userRepository.findByEmail(authentication.getName()).orElseThrow();
-        return profileService.getProfileByUserId(user.getId())
+    public ResponseEntity<Map<String, Object>> getMeBio(@CurrentUser Long userId) {
+        return profileService.getProfileByUserId(userId)
                 .map(p -> {
                     Map<String, Object> map = new HashMap<>();
                     map.put("id", p.getUser().getId());
@@ -168,21 +155,21 @@ public class APIController {
 
     // 5. /recommendations (IDs only)
     @GetMapping("/recommendations")
-    public ResponseEntity<List<Long>> getRecommendations(Authentication authentication) {
-        User user = userRepository.findByEmail(authentication.getName()).orElseThrow();
-        List<Long> recommendedIds = recommendationService.getRecommendations(user);
-        return ResponseEntity.ok(recommendedIds);
+    public ResponseEntity<List<Long>> getRecommendations(@CurrentUser User user) {
+        RecommendationDeckService.Deck deck = deckService.getDeck(user);
+        return ResponseEntity.ok()
+                .header(RecommendationDeckService.AGE_HEADER, String.valueOf(deck.getAgeSeconds()))
+                .body(deck.getUserIds());
     }
 
     // 6. /connections (IDs only)
     @GetMapping("/connections")
-    public ResponseEntity<List<Long>> getConnections(Authentication authentication) {
-        User user = userRepository.findByEmail(authentication.getName()).orElseThrow();
-        List<Connection> connections = connectionService.getMyConnections(user);
+    public ResponseEntity<List<Long>> getConnections(@CurrentUser Long userId) {
+        List<Connection> connections = connectionService.getMyConnections(userId);
 
         List<Long> connectionIds = connections.stream()
                 .map(c -> {
-                    User partner = c.getRequester().equals(user) ? c.getReceiver() : c.getRequester();
+                    User partner = c.getRequester().getId().equals(userId) ? c.getReceiver() : c.getRequester();
                     return partner.getId();
                 })
                 .collect(Collectors.toList());
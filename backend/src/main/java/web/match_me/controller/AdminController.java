@@ -1,12 +1,21 @@
 package web.match_me.controller;
 
+import web.match_me.service.ConnectionGraph;
 import web.match_me.service.DataSeedingService;
+import web.match_me.service.ExclusionIndex;
+import web.match_me.service.MessageReplayService;
+import web.match_me.service.PresenceService;
+import web.match_me.service.RecommendationDeckService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.Map;
+
 @RestController
 @RequestMapping("/admin")
 public class AdminController {
@@ -14,9 +23,80 @@ public class AdminController {
     @Autowired
     private DataSeedingService dataSeedingService;
 
+    @Autowired
+    private RecommendationDeckService deckService;
+
+    @Autowired
+    private ExclusionIndex exclusionIndex;
+
+    @Autowired
+    private ConnectionGraph connectionGraph;
+
+    @Autowired
+    private MessageReplayService messageReplayService;
+
+    @Autowired
+    private PresenceService presenceService;
+
+    @Autowired
+    private web.match_me.security.TokenCache tokenCache;
+
     @PostMapping("/seed")
     public ResponseEntity<String> seedData() {
         dataSeedingService.seedUsers(100);
         return ResponseEntity.ok("Database seeded successfully with 100 users.");
     }
+
+    // Hit/miss/eviction counters of the recommendation deck cache, for sizing it
+    @GetMapping("/recommendations/cache")
+    public ResponseEntity<Map<String, Object>> recommendationCacheStats() {
+        return ResponseEntity.ok(deckService.getStats());
+    }
+
+    // Heap used by the exclusion bitmaps, overall and for one user
+    @GetMapping("/recommendations/exclusions")
+    public ResponseEntity<Map<String, Object>> exclusionStats() {
+        return ResponseEntity.ok(exclusionIndex.getStats());
+    }
+
+    @GetMapping("/recommendations/exclusions/{userId}")
+    public ResponseEntity<Map<String, Object>> exclusionMemory(@PathVariable Long userId) {
+        return ResponseEntity.ok(exclusionIndex.getMemoryUsage(userId));
+    }
+
+    // In-memory connection graph vs the connections table
+    @GetMapping("/connections/graph")
+    public ResponseEntity<Map<String, Object>> connectionGraphCheck() {
+        return ResponseEntity.ok(connectionGraph.checkConsistency(false));
+    }
+
+    @PostMapping("/connections/graph/repair")
+    public ResponseEntity<Map<String, Object>> connectionGraphRepair() {
+        return ResponseEntity.ok(connectionGraph.checkConsistency(true));
+    }
+
+    // Online users, open sessions, pending offline grace timers
+    @GetMapping("/presence")
+    public ResponseEntity<Map<String, Object>> presenceStats() {
+        return ResponseEntity.ok(presenceService.getStats());
+    }
+
+    // Verified-token cache: size and hit rate
+    @GetMapping("/token-cache")
+    public ResponseEntity<Map<String, Object>> tokenCacheStats() {
+        return ResponseEntity.ok(tokenCache.getStats());
+    }
+
+    // For users changed outside JPA (manual SQL), so their cached tokens stop working now
+    @PostMapping("/token-cache/evict/{userId}")
+    public ResponseEntity<Map<String, Object>> evictUserTokens(@PathVariable Long userId) {
+        tokenCache.invalidateUser(userId);
+        return ResponseEntity.ok(tokenCache.getStats());
+    }
+
+    // Reconnect replays served and how many were too large
+    @GetMapping("/chat/replay")
+    public ResponseEntity<Map<String, Object>> chatReplayStats() {
+        return ResponseEntity.ok(messageReplayService.getStats());
+    }
 }
@@ -1,6 +1,7 @@
 package web.match_me.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.security.core.Authentication;
@@ -9,18 +10,25 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.ResponseBody;
 import web.match_me.entity.ChatMessage;
-import web.match_me.entity.User;
-import web.match_me.repository.UserRepository;
+import web.match_me.config.WebSocketAuthInterceptor;
+import web.match_me.security.CurrentUser;
+import web.match_me.security.UserDetailsImpl;
+import web.match_me.service.ChatIngestService;
 import web.match_me.service.ChatService;
+import web.match_me.service.MessageReplayService;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Controller
 public class ChatController {
 
+    private static final int MAX_HISTORY_PAGE = 100;
+
     @Autowired
     private ChatService chatService;
 
@@ -28,118 +36,158 @@ public class ChatController {
     private web.match_me.service.ConnectionService connectionService;
 
     @Autowired
-    private UserRepository userRepository;
+    private ChatIngestService chatIngestService;
+
+    @Value("${chat.ingest.ack-timeout-ms:5000}")
+    private long ingestAckTimeoutMs;
 
     @Autowired
     private SimpMessagingTemplate messagingTemplate;
 
     @Autowired
-    private web.match_me.repository.ChatMessageRepository chatMessageRepository;
+    private MessageReplayService messageReplayService;
 
     // REST Endpoint: Send Message
+    // With chat.ingest.write-behind on, the message is queued and both the push to the receiver
+    // and the HTTP response wait for its batch to commit, so a failed batch is never seen.
     @org.springframework.web.bind.annotation.PostMapping("/messages/send")
     @ResponseBody
-    public ResponseEntity<?> sendMessage(
+    public CompletableFuture<ResponseEntity<?>> sendMessage(
             @org.springframework.web.bind.annotation.RequestBody ChatMessageDto chatMessageDto,
-            Authentication authentication) {
-        User sender = userRepository.findByEmail(authentication.getName()).orElseThrow();
-        User receiver = userRepository.findById(chatMessageDto.getReceiverId())
-                .orElseThrow(() -> new RuntimeException("Receiver not found"));
+            @CurrentUser Long senderId) throws InterruptedException {
+        if (!connectionService.areConnected(senderId, chatMessageDto.getReceiverId())) {
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.status(403).body(Map.of("error", "You can only message connected users")));
+        }
 
-        if (!connectionService.areConnected(sender, receiver)) {
-            return ResponseEntity.status(403).body(Map.of("error", "You can only message connected users"));
+        if (!chatIngestService.isEnabled()) {
+            ChatMessage saved = chatService.saveMessage(
+                    senderId,
+                    chatMessageDto.getReceiverId(),
+                    chatMessageDto.getContent());
+            Map<String, Object> response = MessageReplayService.payload(saved.getId(), saved.getSeq(), senderId,
+                    chatMessageDto.getReceiverId(), saved.getContent(), saved.getTimestamp());
+            return CompletableFuture.completedFuture(deliver(response));
         }
 
-        ChatMessage saved = chatService.saveMessage(
-                sender.getId(),
+        ChatIngestService.PendingMessage pending = chatIngestService.submit(
+                senderId,
                 chatMessageDto.getReceiverId(),
                 chatMessageDto.getContent());
+        if (pending == null) {
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.status(503).body(Map.of("error", "Chat is busy, please retry")));
+        }
 
-        // Convert LocalDateTime to array format [year, month, day, hour, minute,
-        // second, nano]
-        // This matches what Jackson serializes for REST endpoints
-        java.time.LocalDateTime ts = saved.getTimestamp();
-        int[] timestampArray = new int[] {
-                ts.getYear(), ts.getMonthValue(), ts.getDayOfMonth(),
-                ts.getHour(), ts.getMinute(), ts.getSecond(), ts.getNano()
-        };
-
-        Map<String, Object> response = new HashMap<>();
-        response.put("id", saved.getId());
-        response.put("senderId", saved.getSender().getId());
-        response.put("receiverId", saved.getReceiver().getId());
-        response.put("content", saved.getContent());
-        response.put("timestamp", timestampArray);
+        // Pushed on commit (the seq is assigned then) even if the sender's ack below has timed out
+        CompletableFuture<ResponseEntity<?>> delivered = pending.getPersisted().thenApply(done -> deliver(
+                MessageReplayService.payload(pending.getId(), pending.getSeq(), senderId, pending.getReceiverId(),
+                        pending.getContent(), pending.getTimestamp())));
+        return delivered
+                .orTimeout(ingestAckTimeoutMs, TimeUnit.MILLISECONDS)
+                .handle((ok, error) -> error == null
+                        ? ok
+                        : ResponseEntity.status(503).body(Map.of("error", "Message could not be saved")));
+    }
 
-        // Broadcast to receiver via WebSocket
+    // Broadcast to receiver via WebSocket. A client that is reconnecting gets it from the
+    // replay instead (and drops a duplicate live copy by id).
+    private ResponseEntity<?> deliver(Map<String, Object> response) {
         messagingTemplate.convertAndSend(
-                "/queue/messages-user" + saved.getReceiver().getId(),
+                "/queue/messages-user" + response.get("receiverId"),
                 response);
-
         return ResponseEntity.ok(Map.of("message", "Sent successfully", "data", response));
     }
 
+    // STOMP: SUBSCRIBE /app/messages/replay once /queue/messages-user<id> is subscribed.
+    // Answers this session only, with the messages after the per-conversation resume-after
+    // cursor sent on CONNECT (or on this SUBSCRIBE). complete=false means too much was missed -
+    // reload instead.
+    @org.springframework.messaging.simp.annotation.SubscribeMapping("/messages/replay")
+    public Map<String, Object> replayMessages(
+            org.springframework.messaging.simp.SimpMessageHeaderAccessor accessor,
+            java.security.Principal principal) {
+        if (!(principal instanceof Authentication authentication)
+                || !(authentication.getPrincipal() instanceof UserDetailsImpl userDetails)) {
+            return Map.of("error", "Not authenticated");
+        }
+        Map<Long, Long> cursor = WebSocketAuthInterceptor.resumeCursor(accessor);
+        if (cursor == null) {
+            // Fresh client, it loads connections and history over REST (and sends a cursor
+            // seeded from them on its next reconnect)
+            return Map.of("messages", List.of(), "complete", true);
+        }
+
+        MessageReplayService.Replay replay = messageReplayService.replay(userDetails.getId(), cursor);
+        Map<String, Object> response = new HashMap<>();
+        response.put("messages", replay.getMessages());
+        response.put("complete", replay.isComplete());
+        return response;
+    }
+
     // REST Endpoint: Send Typing Indicator
     @org.springframework.web.bind.annotation.PostMapping("/messages/typing")
     @ResponseBody
     public ResponseEntity<?> sendTypingIndicator(
             @org.springframework.web.bind.annotation.RequestBody TypingIndicatorDto dto,
-            Authentication authentication) {
-        User sender = userRepository.findByEmail(authentication.getName()).orElseThrow();
-        User receiver = userRepository.findById(dto.getReceiverId())
-                .orElseThrow(() -> new RuntimeException("Receiver not found"));
-
-        if (!connectionService.areConnected(sender, receiver)) {
+            @CurrentUser Long senderId) {
+        if (!connectionService.areConnected(senderId, dto.getReceiverId())) {
             return ResponseEntity.status(403).body(Map.of("error", "Not connected"));
         }
 
         Map<String, Object> typingEvent = new HashMap<>();
-        typingEvent.put("senderId", sender.getId());
+        typingEvent.put("senderId", senderId);
         typingEvent.put("isTyping", true);
 
         messagingTemplate.convertAndSend(
-                "/queue/typing-user" + receiver.getId(),
+                "/queue/typing-user" + dto.getReceiverId(),
                 typingEvent);
 
         return ResponseEntity.ok(Map.of("success", true));
     }
 
     // REST Endpoint: Get History
-    // REST Endpoint: Get History
+    // Cursor pagination by conversation seq: no cursor = latest page, beforeSeq=<n> = older,
+    // afterSeq=<n> = newer (sync after a reconnect: pass the last seq you have).
+    // Messages come oldest -> newest either way.
     @GetMapping("/messages/{userId}")
     @ResponseBody
     public ResponseEntity<Map<String, Object>> getChatHistory(
             @PathVariable Long userId,
-            @org.springframework.web.bind.annotation.RequestParam(defaultValue = "0") int page,
+            @org.springframework.web.bind.annotation.RequestParam(required = false) Long beforeSeq,
+            @org.springframework.web.bind.annotation.RequestParam(required = false) Long afterSeq,
             @org.springframework.web.bind.annotation.RequestParam(defaultValue = "20") int size,
-            Authentication authentication) {
-        User currentUser = userRepository.findByEmail(authentication.getName()).orElseThrow();
+            @CurrentUser Long currentUserId) {
+        if (beforeSeq != null && afterSeq != null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Use either beforeSeq or afterSeq, not both"));
+        }
+        size = Math.max(1, Math.min(size, MAX_HISTORY_PAGE));
 
-        org.springframework.data.domain.Page<ChatMessage> chatPage = chatService.getChatHistoryPaged(currentUser,
-                userId, page, size);
-        List<ChatMessage> history = chatPage.getContent();
+        ChatService.HistoryPage chatPage = chatService.getChatHistoryPage(currentUserId, userId, beforeSeq, afterSeq, size);
 
         // Convert to DTOs
-        List<Map<String, Object>> messages = history.stream().map(msg -> {
+        List<Map<String, Object>> messages = chatPage.getMessages().stream().map(msg -> {
             Map<String, Object> map = new HashMap<>();
             map.put("id", msg.getId());
+            map.put("seq", msg.getSeq());
             map.put("senderId", msg.getSender().getId());
             map.put("receiverId", msg.getReceiver().getId());
             map.put("content", msg.getContent());
             map.put("timestamp", msg.getTimestamp());
-            map.put("read", msg.isRead());
+            map.put("read", chatPage.isRead(msg));
             return map;
         }).collect(Collectors.toList());
 
-        // Reverse to chronological order (oldest -> newest) for display
-        java.util.Collections.reverse(messages);
-
         Map<String, Object> response = new HashMap<>();
         response.put("messages", messages);
-        response.put("startOfChatReached", chatPage.isLast());
-        // Note: isLast() is true if the current slice is the last one.
-        // If total elements = 0, isLast() is true.
-        // If total elements < size, isLast() is true.
+        response.put("hasMore", chatPage.hasMore());
+        // My messages up to this id have been read by the other user
+        response.put("partnerReadUpTo", chatPage.getLastReadBy(userId));
+        // Scrolling back: nothing older than this page
+        response.put("startOfChatReached", afterSeq == null && !chatPage.hasMore());
+        // Cursors for the next requests
+        response.put("oldestSeq", messages.isEmpty() ? beforeSeq : messages.get(0).get("seq"));
+        response.put("newestSeq", messages.isEmpty() ? afterSeq : messages.get(messages.size() - 1).get("seq"));
 
         return ResponseEntity.ok(response);
     }
@@ -192,18 +240,13 @@ public class ChatController {
     // REST Endpoint: Mark messages as read
     @org.springframework.web.bind.annotation.PostMapping("/messages/read/{senderId}")
     @ResponseBody
-    @org.springframework.transaction.annotation.Transactional
-    public ResponseEntity<?> markMessagesAsRead(@PathVariable Long senderId, Authentication authentication) {
-        User receiver = userRepository.findByEmail(authentication.getName()).orElseThrow();
-        User sender = userRepository.findById(senderId)
-                .orElseThrow(() -> new RuntimeException("Sender not found"));
-
-        chatMessageRepository.markMessagesAsRead(receiver, sender);
+    public ResponseEntity<?> markMessagesAsRead(@PathVariable Long senderId, @CurrentUser Long receiverId) {
+        chatService.markMessagesAsRead(receiverId, senderId);
 
         // Notify myself (other tabs/devices) to clear badges
         messagingTemplate.convertAndSend(
-                "/queue/messages-read-user" + receiver.getId(),
-                Map.of("senderId", sender.getId()));
+                "/queue/messages-read-user" + receiverId,
+                Map.of("senderId", senderId));
 
         return ResponseEntity.ok(Map.of("success", true));
     }
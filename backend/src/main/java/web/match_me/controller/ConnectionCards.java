@@ -0,0 +1,77 @@
+package web.match_me.controller;
+
+import web.match_me.entity.Connection;
+import web.match_me.entity.Profile;
+import web.match_me.entity.User;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Response maps for the connection and request lists. Pure functions of already loaded data,
+// so the JMH benchmarks can drive them without a Spring context.
+final class ConnectionCards {
+
+    private ConnectionCards() {
+    }
+
+    static Map<String, Object> connectionCard(Connection c, User partner, Profile profile,
+            LocalDateTime lastMessageSentAt, long unreadCount, long lastMessageSeq, LocalDateTime lastSeenAt) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("connectionId", c.getId());
+        map.put("userId", partner.getId());
+        putProfileFields(map, partner, profile, "username", "lastName");
+        map.put("connectedAt", c.getCreatedAt());
+        map.put("lastMessageSentAt", lastMessageSentAt);
+        map.put("unreadCount", unreadCount);
+        // Reconnect cursor seed for this conversation
+        map.put("lastMessageSeq", lastMessageSeq);
+        map.put("lastSeenAt", lastSeenAt);
+        return map;
+    }
+
+    static Map<String, Object> requestCard(Connection c, Profile profile) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("connectionId", c.getId());
+        map.put("requesterId", c.getRequester().getId());
+        putProfileFields(map, c.getRequester(), profile, "requesterName", "requesterLastName");
+        map.put("sentAt", c.getCreatedAt());
+        return map;
+    }
+
+    // If profile not found, set default values
+    private static void putProfileFields(Map<String, Object> map, User user, Profile profile,
+            String nameKey, String lastNameKey) {
+        if (profile == null) {
+            map.put(nameKey, user.getUsername());
+            map.put(lastNameKey, "");
+            map.put("bio", "");
+            map.put("experience", List.of());
+            map.put("skills", List.of());
+            map.put("education", "");
+            map.put("languages", "");
+            map.put("additionalCertificates", "");
+            map.put("gender", "");
+            map.put("location", "");
+            map.put("profilePictureUrl", "");
+            return;
+        }
+        String displayName = profile.getFirstName() != null && !profile.getFirstName().isEmpty()
+                ? profile.getFirstName()
+                : user.getUsername();
+        map.put(nameKey, displayName);
+        map.put(lastNameKey, profile.getLastName() != null ? profile.getLastName() : "");
+        map.put("bio", profile.getBio() != null ? profile.getBio() : "");
+        map.put("experience", profile.getInterests() != null ? profile.getInterests() : List.of());
+        map.put("skills", profile.getHobbies() != null ? profile.getHobbies() : List.of());
+        map.put("education", profile.getMusicTaste() != null ? profile.getMusicTaste() : "");
+        map.put("languages", profile.getFoodPreference() != null ? profile.getFoodPreference() : "");
+        map.put("additionalCertificates",
+                profile.getTravelPreference() != null ? profile.getTravelPreference() : "");
+        map.put("gender", profile.getGender() != null ? profile.getGender() : "");
+        map.put("location", profile.getLocation() != null ? profile.getLocation() : "");
+        map.put("profilePictureUrl",
+                profile.getProfilePictureUrl() != null ? profile.getProfilePictureUrl() : "");
+    }
+}
@@ -2,11 +2,11 @@ package web.match_me.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import web.match_me.entity.Profile;
 import web.match_me.entity.User;
 import web.match_me.repository.UserRepository;
+import web.match_me.security.CurrentUser;
 import web.match_me.service.ProfileService;
 import web.match_me.service.CloudinaryService;
 
@@ -32,7 +32,7 @@ public class ProfileController {
     }
 
     @GetMapping("/users/{id}")
-    public ResponseEntity<?> getUserBasic(@PathVariable Long id, Authentication authentication) {
+    public ResponseEntity<?> getUserBasic(@PathVariable Long id) {
         // Note: Authentication is validated by security filter
         return profileService.getProfileByUserId(id)
                 .map(profile -> {
@@ -46,9 +46,9 @@ public class ProfileController {
     }
 
     @GetMapping("/users/{id}/profile")
-    public ResponseEntity<?> getUserProfile(@PathVariable Long id, Authentication authentication) {
+    public ResponseEntity<?> getUserProfile(@PathVariable Long id, @CurrentUser Long userId) {
         // "About Me" type info
-        return checkVisibilityAndReturn(id, authentication, (profile) -> {
+        return checkVisibilityAndReturn(id, userId, (profile) -> {
             Map<String, Object> response = new HashMap<>();
             response.put("id", profile.getUser().getId());
             response.put("aboutMe", profile.getBio());
@@ -58,9 +58,9 @@ public class ProfileController {
     }
 
     @GetMapping("/users/{id}/bio")
-    public ResponseEntity<?> getUserBio(@PathVariable Long id, Authentication authentication) {
+    public ResponseEntity<?> getUserBio(@PathVariable Long id, @CurrentUser Long userId) {
         // Bio data points
-        return checkVisibilityAndReturn(id, authentication, (profile) -> {
+        return checkVisibilityAndReturn(id, userId, (profile) -> {
             Map<String, Object> response = new HashMap<>();
             response.put("id", profile.getUser().getId());
             response.put("gender", profile.getGender());
@@ -75,11 +75,9 @@ public class ProfileController {
     }
 
     // Method allows profile viewing by anyone with the ID
-    private ResponseEntity<?> checkVisibilityAndReturn(Long targetUserId, Authentication authentication,
+    private ResponseEntity<?> checkVisibilityAndReturn(Long targetUserId, Long requesterId,
             java.util.function.Function<Profile, Map<String, Object>> mapper) {
-        User requester = userRepository.findByEmail(authentication.getName()).orElseThrow();
-
-        if (requester.getId().equals(targetUserId)) {
+        if (requesterId.equals(targetUserId)) {
             // Own profile
             return profileService.getProfileByUserId(targetUserId)
                     .map(p -> ResponseEntity.ok(mapper.apply(p)))
@@ -92,10 +90,9 @@ public class ProfileController {
     }
 
     @GetMapping("/me")
-    public ResponseEntity<?> getMe(Authentication authentication) {
-        User user = userRepository.findByEmail(authentication.getName()).orElseThrow();
-
-        return profileService.getProfileByUser(user)
+    public ResponseEntity<?> getMe(@CurrentUser User user) {
+        // Reference: no users lookup of its own (the profile query joins the user row)
+        return profileService.getProfileByUserId(user.getId())
                 .map(p -> {
                     Map<String, Object> response = new HashMap<>();
 
@@ -133,15 +130,13 @@ public class ProfileController {
 
     // return my ID
     @GetMapping("/meid")
-    public ResponseEntity<Long> getMeId(Authentication authentication) {
-        User user = userRepository.findByEmail(authentication.getName()).orElseThrow();
-        return ResponseEntity.ok(user.getId());
+    public ResponseEntity<Long> getMeId(@CurrentUser Long userId) {
+        return ResponseEntity.ok(userId);
     }
 
     @PostMapping("/me/photo")
     public ResponseEntity<?> uploadPhoto(@RequestParam("file") org.springframework.web.multipart.MultipartFile file,
-            Authentication authentication) {
-        User user = userRepository.findByEmail(authentication.getName()).orElseThrow();
+            @CurrentUser User user) {
         if (file.isEmpty()) {
             return ResponseEntity.badRequest().body(Map.of("error", "File is empty"));
         }
@@ -157,28 +152,24 @@ public class ProfileController {
     }
 
     @DeleteMapping("/me/photo")
-    public ResponseEntity<?> deletePhoto(Authentication authentication) {
-        User user = userRepository.findByEmail(authentication.getName()).orElseThrow();
+    public ResponseEntity<?> deletePhoto(@CurrentUser User user) {
         profileService.deleteProfilePhoto(user);
         return ResponseEntity.ok(Map.of("message", "Photo deleted"));
     }
 
     @GetMapping("/me/profile")
-    public ResponseEntity<?> getMeProfile(Authentication authentication) {
-        User user = userRepository.findByEmail(authentication.getName()).orElseThrow();
-        return getUserProfile(user.getId(), authentication);
+    public ResponseEntity<?> getMeProfile(@CurrentUser Long userId) {
+        return getUserProfile(userId, userId);
     }
 
     @GetMapping("/me/bio")
-    public ResponseEntity<?> getMeBio(Authentication authentication) {
-        User user = userRepository.findByEmail(authentication.getName()).orElseThrow();
-        return getUserBio(user.getId(), authentication);
+    public ResponseEntity<?> getMeBio(@CurrentUser Long userId) {
+        return getUserBio(userId, userId);
     }
 
     // If no FALSE
     @GetMapping("/users/confirmed")
-    public ResponseEntity<Map<String, Boolean>> isUserConfirmed(Authentication authentication) {
-        User user = userRepository.findByEmail(authentication.getName()).orElseThrow();
+    public ResponseEntity<Map<String, Boolean>> isUserConfirmed(@CurrentUser User user) {
         boolean isConfirmed = profileService.isProfileComplete(user);
 
         Map<String, Boolean> response = new HashMap<>();
@@ -187,8 +178,9 @@ public class ProfileController {
     }
 
     @PatchMapping("/me")
-    public ResponseEntity<?> updateProfile(Authentication authentication, @RequestBody Profile profileData) {
-        User user = userRepository.findByEmail(authentication.getName()).orElseThrow();
+    public ResponseEntity<?> updateProfile(@CurrentUser Long userId, @RequestBody Profile profileData) {
+        // Loaded, not a reference: the returned profile serializes its user
+        User user = userRepository.findById(userId).orElseThrow();
         Profile updatedProfile = profileService.updateProfilePartially(user, profileData);
         return ResponseEntity.ok(updatedProfile);
     }
@@ -2,13 +2,14 @@ package web.match_me.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import web.match_me.entity.Profile;
 import web.match_me.entity.User;
 import web.match_me.repository.UserRepository;
 import web.match_me.service.ProfileService;
+import web.match_me.service.RecommendationDeckService;
 import web.match_me.service.RecommendationService;
-import web.match_me.security.UserDetailsImpl;
+import web.match_me.security.CurrentUser;
 
 import java.util.HashMap;
 import java.util.List;
@@ -28,40 +29,41 @@ public class RecommendationController {
     @Autowired
     private ProfileService profileService;
 
-    @GetMapping
-    public ResponseEntity<?> getRecommendations(Authentication authentication) {
-        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
-        User user = userRepository.findById(userDetails.getId()).orElseThrow();
+    @Autowired
+    private RecommendationDeckService deckService;
 
-        List<Long> recommendedIds = recommendationService.getRecommendations(user);
+    @GetMapping
+    public ResponseEntity<?> getRecommendations(@CurrentUser User user) {
+        // A cached deck only needs the id; the row is loaded only when the deck is rebuilt
+        RecommendationDeckService.Deck deck = deckService.getDeck(user);
+        List<Long> recommendedIds = deck.getUserIds();
 
-        // Enrich with comprehensive profile data for the UI card
-        List<Map<String, Object>> response = recommendedIds.stream().map(id -> {
-            return profileService.getProfileByUserId(id).map(p -> {
-                Map<String, Object> map = new HashMap<>();
-                map.put("userId", p.getUser().getId());
-                map.put("name", p.getFirstName() != null ? p.getFirstName() : "");
-                map.put("lastName", p.getLastName() != null ? p.getLastName() : "");
-                map.put("bio", p.getBio() != null ? p.getBio() : "");
-                map.put("experience", p.getInterests() != null ? p.getInterests() : List.of());
-                map.put("skills", p.getHobbies() != null ? p.getHobbies() : List.of());
-                map.put("education", p.getMusicTaste() != null ? p.getMusicTaste() : "");
-                map.put("languages", p.getFoodPreference() != null ? p.getFoodPreference() : "");
-                map.put("additionalCertificates", p.getTravelPreference() != null ? p.getTravelPreference() : "");
-                map.put("gender", p.getGender() != null ? p.getGender() : "");
-                map.put("location", p.getLocation() != null ? p.getLocation() : "");
-                map.put("pictureUrl", p.getProfilePictureUrl() != null ? p.getProfilePictureUrl() : "");
-                return map;
-            }).orElse(null);
-        }).filter(java.util.Objects::nonNull).collect(Collectors.toList());
+        // Enrich with comprehensive profile data for the UI card (batched, in deck order)
+        Map<Long, Profile> profiles = profileService.getProfilesByUserIds(recommendedIds);
+        List<Map<String, Object>> response = profiles.values().stream().map(p -> {
+            Map<String, Object> map = new HashMap<>();
+            map.put("userId", p.getUser().getId());
+            map.put("name", p.getFirstName() != null ? p.getFirstName() : "");
+            map.put("lastName", p.getLastName() != null ? p.getLastName() : "");
+            map.put("bio", p.getBio() != null ? p.getBio() : "");
+            map.put("experience", p.getInterests() != null ? p.getInterests() : List.of());
+            map.put("skills", p.getHobbies() != null ? p.getHobbies() : List.of());
+            map.put("education", p.getMusicTaste() != null ? p.getMusicTaste() : "");
+            map.put("languages", p.getFoodPreference() != null ? p.getFoodPreference() : "");
+            map.put("additionalCertificates", p.getTravelPreference() != null ? p.getTravelPreference() : "");
+            map.put("gender", p.getGender() != null ? p.getGender() : "");
+            map.put("location", p.getLocation() != null ? p.getLocation() : "");
+            map.put("pictureUrl", p.getProfilePictureUrl() != null ? p.getProfilePictureUrl() : "");
+            return map;
+        }).collect(Collectors.toList());
 
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok()
+                .header(RecommendationDeckService.AGE_HEADER, String.valueOf(deck.getAgeSeconds()))
+                .body(response);
     }
 
     @PostMapping("/dismiss/{targetId}")
-    public ResponseEntity<?> dismissRecommendation(@PathVariable Long targetId, Authentication authentication) {
-        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
-        User user = userRepository.findById(userDetails.getId()).orElseThrow();
+    public ResponseEntity<?> dismissRecommendation(@PathVariable Long targetId, @CurrentUser User user) {
         User target = userRepository.findById(targetId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
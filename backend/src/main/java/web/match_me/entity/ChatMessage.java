@@ -11,11 +11,21 @@ import java.time.LocalDateTime;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "chat_messages")
+@Table(name = "chat_messages", uniqueConstraints = {
+    // Order within a conversation, and the index behind cursor pagination and afterSeq sync
+    // (also the reconnect replay's per-conversation seek)
+    @UniqueConstraint(name = "uk_chat_messages_pair_seq", columnNames = {"user_low_id", "user_high_id", "seq"})
+})
 public class ChatMessage {
 
+    // Pooled sequence (pooled-lo): Hibernate and the write-behind ChatIngestService both take
+    // blocks of ALLOCATION_SIZE ids from it, so ids exist before the row is inserted
+    public static final String ID_SEQUENCE = "chat_messages_seq";
+    public static final int ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ALLOCATION_SIZE)
     private Long id;
 
     @ManyToOne
@@ -31,5 +41,22 @@ public class ChatMessage {
 
     private LocalDateTime timestamp;
 
-    private boolean isRead = false;
+    // Position in the conversation: 1, 2, 3, ... without gaps, in commit order (see ConversationSeqAllocator)
+    @Column(nullable = false)
+    private Long seq;
+
+    // Read state lives in ConversationSummary watermarks: read by the receiver <=> id <= their lastRead id
+
+    // Canonical conversation key: (min, max) of sender and receiver ids
+    @Column(name = "user_low_id", nullable = false)
+    private Long userLowId;
+
+    @Column(name = "user_high_id", nullable = false)
+    private Long userHighId;
+
+    @PrePersist
+    void setPairKey() {
+        userLowId = Math.min(sender.getId(), receiver.getId());
+        userHighId = Math.max(sender.getId(), receiver.getId());
+    }
 }
@@ -11,11 +11,15 @@ import java.time.LocalDateTime;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "connections")
+@Table(name = "connections", uniqueConstraints = {
+    // One row per unordered pair - concurrent requests between the same users collide here
+    @UniqueConstraint(name = "uk_connections_pair", columnNames = {"user_low_id", "user_high_id"})
+})
 public class Connection {
  // Class for private stuff  , request visability ,  connections visability ,  search security
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "connections_seq")
+    @SequenceGenerator(name = "connections_seq", sequenceName = "connections_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -31,6 +35,20 @@ public class Connection {
 
     private LocalDateTime createdAt;
 
+    // Canonical pair key: (min, max) of the two user ids, whoever sent the request
+    @Column(name = "user_low_id", nullable = false)
+    private Long userLowId;
+
+    @Column(name = "user_high_id", nullable = false)
+    private Long userHighId;
+
+    @PrePersist
+    @PreUpdate
+    void setPairKey() {
+        userLowId = Math.min(requester.getId(), receiver.getId());
+        userHighId = Math.max(requester.getId(), receiver.getId());
+    }
+
     public enum ConnectionStatus {
         PENDING,
         ACCEPTED,
@@ -0,0 +1,32 @@
+package web.match_me.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Last message seq handed out per conversation (see ConversationSeqAllocator). Only written by
+// the native claim upsert, in the same transaction as the messages it numbers.
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "conversation_sequences", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_conversation_sequences_pair", columnNames = {"user_low_id", "user_high_id"})
+})
+public class ConversationSequence {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_low_id", nullable = false)
+    private Long userLowId;
+
+    @Column(name = "user_high_id", nullable = false)
+    private Long userHighId;
+
+    // Seq of the conversation's newest message
+    @Column(nullable = false)
+    private long reserved;
+}
@@ -0,0 +1,89 @@
+package web.match_me.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// One row per conversation, keyed by the canonical pair (lower user id, higher user id).
+// Written together with the message in ChatService so the conversation list never has to
+// aggregate chat_messages.
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "conversation_summary", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_conversation_summary_pair", columnNames = {"user_low_id", "user_high_id"})
+}, indexes = {
+    @Index(name = "idx_conversation_summary_high", columnList = "user_high_id")
+})
+public class ConversationSummary {
+
+    public static final int PREVIEW_LENGTH = 140;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_low_id", nullable = false)
+    private Long userLowId;
+
+    @Column(name = "user_high_id", nullable = false)
+    private Long userHighId;
+
+    private Long lastMessageId;
+
+    // Highest seq in the conversation - seeds the client's reconnect cursor
+    @Column(nullable = false)
+    private long lastMessageSeq;
+
+    private Long lastSenderId;
+
+    private LocalDateTime lastMessageAt;
+
+    @Column(length = PREVIEW_LENGTH)
+    private String lastMessagePreview;
+
+    // Messages the low / high user has not read yet
+    @Column(nullable = false)
+    private long unreadLow;
+
+    @Column(nullable = false)
+    private long unreadHigh;
+
+    // Read watermarks: the newest message id each side has read. Everything at or below it
+    // counts as read, so marking a conversation read is one row update.
+    @Column(nullable = false)
+    private long lastReadLowId;
+
+    @Column(nullable = false)
+    private long lastReadHighId;
+
+    public long getUnreadFor(Long userId) {
+        return userId.equals(userLowId) ? unreadLow : unreadHigh;
+    }
+
+    public long getLastReadBy(Long userId) {
+        return userId.equals(userLowId) ? lastReadLowId : lastReadHighId;
+    }
+
+    public boolean isReadBy(Long userId, Long messageId) {
+        return messageId <= getLastReadBy(userId);
+    }
+
+    public Long getPartnerOf(Long userId) {
+        return userId.equals(userLowId) ? userHighId : userLowId;
+    }
+
+    public static String preview(String content) {
+        if (content == null || content.length() <= PREVIEW_LENGTH)
+            return content;
+        int end = PREVIEW_LENGTH;
+        // Don't cut an emoji in half
+        if (Character.isHighSurrogate(content.charAt(end - 1)))
+            end--;
+        return content.substring(0, end);
+    }
+}
@@ -13,11 +13,16 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @Table(name = "recommendation_dismissals", uniqueConstraints = {
     @UniqueConstraint(columnNames = {"user_id", "dismissed_user_id"})
+}, indexes = {
+    // Windowed per-user lookups and the expiry purge
+    @Index(name = "idx_dismissals_user_dismissed_at", columnList = "user_id, dismissed_at"),
+    @Index(name = "idx_dismissals_dismissed_at", columnList = "dismissed_at")
 })
 public class RecommendationDismissal {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "recommendation_dismissals_seq")
+    @SequenceGenerator(name = "recommendation_dismissals_seq", sequenceName = "recommendation_dismissals_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -0,0 +1,12 @@
+package web.match_me.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Published after a connection between two users was requested, accepted, rejected or removed
+@Getter
+@AllArgsConstructor
+public class ConnectionChangedEvent {
+    private final Long userId;
+    private final Long otherUserId;
+}
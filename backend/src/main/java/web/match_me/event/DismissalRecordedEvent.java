@@ -0,0 +1,12 @@
+package web.match_me.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Published after userId hid dismissedUserId from their recommendations
+@Getter
+@AllArgsConstructor
+public class DismissalRecordedEvent {
+    private final Long userId;
+    private final Long dismissedUserId;
+}
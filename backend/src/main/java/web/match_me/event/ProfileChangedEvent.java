@@ -0,0 +1,11 @@
+package web.match_me.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Published after a user's profile has been saved
+@Getter
+@AllArgsConstructor
+public class ProfileChangedEvent {
+    private final Long userId;
+}
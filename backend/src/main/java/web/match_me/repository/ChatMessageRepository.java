@@ -15,25 +15,35 @@ import java.util.Optional;
 public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long> {
 
     // Find chat history between two users (Legacy - full history)
-    @Query("SELECT m FROM ChatMessage m WHERE (m.sender = :user1 AND m.receiver = :user2) OR (m.sender = :user2 AND m.receiver = :user1) ORDER BY m.timestamp ASC")
+    @Query("SELECT m FROM ChatMessage m WHERE (m.sender = :user1 AND m.receiver = :user2) OR (m.sender = :user2 AND m.receiver = :user1) ORDER BY m.seq ASC")
     List<ChatMessage> findChatHistory(@Param("user1") User user1, @Param("user2") User user2);
 
-    // Find chat history between two users (Paged - latest first)
-    // Note: We order by timestamp DESC to get the *latest* messages first.
-    @Query("SELECT m FROM ChatMessage m WHERE (m.sender = :user1 AND m.receiver = :user2) OR (m.sender = :user2 AND m.receiver = :user1) ORDER BY m.timestamp DESC")
-    org.springframework.data.domain.Page<ChatMessage> findChatHistoryPaged(@Param("user1") User user1,
-            @Param("user2") User user2, org.springframework.data.domain.Pageable pageable);
-
-    // Find unread count
-    long countByReceiverAndIsReadFalse(User receiver);
-
-    // Find unread count per sender
-    long countByReceiverAndSenderAndIsReadFalse(User receiver, User sender);
-
-    // Mark messages as read
-    @org.springframework.data.jpa.repository.Modifying
-    @Query("UPDATE ChatMessage m SET m.isRead = true WHERE m.receiver = :receiver AND m.sender = :sender AND m.isRead = false")
-    void markMessagesAsRead(@Param("receiver") User receiver, @Param("sender") User sender);
+    // Keyset pages over uk_chat_messages_pair_seq. Callers ask for size + 1 rows to learn
+    // whether more exist - no count query, no OFFSET.
+    @Query("SELECT m FROM ChatMessage m WHERE m.userLowId = :low AND m.userHighId = :high ORDER BY m.seq DESC")
+    List<ChatMessage> findLatestInConversation(@Param("low") Long low, @Param("high") Long high,
+            org.springframework.data.domain.Pageable limit);
+
+    @Query("SELECT m FROM ChatMessage m WHERE m.userLowId = :low AND m.userHighId = :high AND m.seq < :beforeSeq "
+            + "ORDER BY m.seq DESC")
+    List<ChatMessage> findInConversationBefore(@Param("low") Long low, @Param("high") Long high,
+            @Param("beforeSeq") Long beforeSeq, org.springframework.data.domain.Pageable limit);
+
+    @Query("SELECT m FROM ChatMessage m WHERE m.userLowId = :low AND m.userHighId = :high AND m.seq > :afterSeq "
+            + "ORDER BY m.seq ASC")
+    List<ChatMessage> findInConversationAfter(@Param("low") Long low, @Param("high") Long high,
+            @Param("afterSeq") Long afterSeq, org.springframework.data.domain.Pageable limit);
+
+    // Reconnect catch-up: every message after the given seq in each of :userId's listed
+    // conversations, sent ones included so the client's cursor sees every seq. One seek on
+    // uk_chat_messages_pair_seq per conversation. :partnerIds / :afterSeqs are parallel Postgres
+    // array literals. Executed by MessageReplayService via JDBC.
+    String REPLAY_SQL = "SELECT m.id, m.seq, m.sender_id, m.receiver_id, m.content, m.timestamp "
+            + "FROM unnest(CAST(:partnerIds AS bigint[]), CAST(:afterSeqs AS bigint[])) AS c(partner_id, after_seq) "
+            + "JOIN chat_messages m ON m.user_low_id = LEAST(:userId, c.partner_id) "
+            + "  AND m.user_high_id = GREATEST(:userId, c.partner_id) AND m.seq > c.after_seq "
+            + "ORDER BY m.user_low_id, m.user_high_id, m.seq "
+            + "LIMIT :limit";
 
     // Find the most recent message timestamp between two users
     @Query("SELECT m.timestamp FROM ChatMessage m WHERE (m.sender = :user1 AND m.receiver = :user2) OR (m.sender = :user2 AND m.receiver = :user1) ORDER BY m.timestamp DESC LIMIT 1")
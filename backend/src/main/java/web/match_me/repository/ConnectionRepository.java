@@ -13,11 +13,27 @@ import java.util.Optional;
 @Repository
 public interface ConnectionRepository extends JpaRepository<Connection, Long> {
     
-    @Query("SELECT c FROM Connection c WHERE (c.requester = :user1 AND c.receiver = :user2) OR (c.requester = :user2 AND c.receiver = :user1)")
-    Optional<Connection> findConnectionBetweenUsers(@Param("user1") User user1, @Param("user2") User user2);
+    // Single seek on uk_connections_pair
+    @Query("SELECT c FROM Connection c WHERE c.userLowId = :low AND c.userHighId = :high")
+    Optional<Connection> findByPair(@Param("low") Long low, @Param("high") Long high);
 
-    List<Connection> findByReceiverAndStatus(User receiver, Connection.ConnectionStatus status);
+    default Optional<Connection> findConnectionBetweenUsers(User user1, User user2) {
+        return findByPair(Math.min(user1.getId(), user2.getId()), Math.max(user1.getId(), user2.getId()));
+    }
 
-    @Query("SELECT c FROM Connection c WHERE (c.requester = :user OR c.receiver = :user) AND c.status = 'ACCEPTED'")
-    List<Connection> findAllAcceptedConnections(@Param("user") User user);
+    List<Connection> findByReceiverIdAndStatus(Long receiverId, Connection.ConnectionStatus status);
+
+    // Both sides fetched in the same statement - the eager @ManyToOne would otherwise
+    // cost a select per distinct user
+    @Query("SELECT c FROM Connection c JOIN FETCH c.requester JOIN FETCH c.receiver "
+            + "WHERE (c.requester.id = :userId OR c.receiver.id = :userId) AND c.status = 'ACCEPTED'")
+    List<Connection> findAcceptedWithUsers(@Param("userId") Long userId);
+
+    // Id-only projections for the exclusion index - no User rows are loaded
+    @Query("SELECT c.requester.id FROM Connection c WHERE c.receiver.id = :userId AND c.status = 'PENDING'")
+    List<Long> findPendingRequesterIds(@Param("userId") Long userId);
+
+    // (requesterId, receiverId) of every accepted connection, for ConnectionGraph
+    @Query("SELECT c.requester.id, c.receiver.id FROM Connection c WHERE c.status = 'ACCEPTED'")
+    List<Object[]> findAcceptedPairs();
 }
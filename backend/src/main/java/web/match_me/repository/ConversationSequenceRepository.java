@@ -0,0 +1,20 @@
+package web.match_me.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import web.match_me.entity.ConversationSequence;
+
+@Repository
+public interface ConversationSequenceRepository extends JpaRepository<ConversationSequence, Long> {
+
+    // Takes the next count seq numbers of a conversation and returns the highest one: the range
+    // is (reserved - count, reserved]. The row stays locked until the caller's transaction ends,
+    // which serializes senders per conversation. A conversation without a row starts after its
+    // stored messages. Executed by ConversationSeqAllocator via JDBC.
+    String CLAIM_SQL = "INSERT INTO conversation_sequences (user_low_id, user_high_id, reserved) "
+            + "VALUES (:low, :high, COALESCE((SELECT MAX(m.seq) FROM chat_messages m "
+            + "  WHERE m.user_low_id = :low AND m.user_high_id = :high), 0) + :count) "
+            + "ON CONFLICT (user_low_id, user_high_id) DO UPDATE SET "
+            + "reserved = conversation_sequences.reserved + :count "
+            + "RETURNING reserved";
+}
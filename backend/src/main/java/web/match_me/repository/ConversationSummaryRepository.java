@@ -0,0 +1,62 @@
+package web.match_me.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import web.match_me.entity.ConversationSummary;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ConversationSummaryRepository extends JpaRepository<ConversationSummary, Long> {
+
+    // Single-statement upsert: concurrent senders can't lose each other's unread increments,
+    // and an older message arriving late never overwrites a newer "last message".
+    // Also executed as a JDBC batch by ChatIngestService.
+    String RECORD_MESSAGE_SQL = "INSERT INTO conversation_summary (user_low_id, user_high_id, last_message_id, "
+            + "last_sender_id, last_message_at, last_message_preview, unread_low, unread_high, last_message_seq) "
+            + "VALUES (:low, :high, :messageId, :senderId, :at, :preview, :unreadLow, :unreadHigh, :seq) "
+            + "ON CONFLICT (user_low_id, user_high_id) DO UPDATE SET "
+            + "last_message_id = CASE WHEN EXCLUDED.last_message_id > conversation_summary.last_message_id "
+            + "  THEN EXCLUDED.last_message_id ELSE conversation_summary.last_message_id END, "
+            + "last_sender_id = CASE WHEN EXCLUDED.last_message_id > conversation_summary.last_message_id "
+            + "  THEN EXCLUDED.last_sender_id ELSE conversation_summary.last_sender_id END, "
+            + "last_message_at = CASE WHEN EXCLUDED.last_message_id > conversation_summary.last_message_id "
+            + "  THEN EXCLUDED.last_message_at ELSE conversation_summary.last_message_at END, "
+            + "last_message_preview = CASE WHEN EXCLUDED.last_message_id > conversation_summary.last_message_id "
+            + "  THEN EXCLUDED.last_message_preview ELSE conversation_summary.last_message_preview END, "
+            + "unread_low = conversation_summary.unread_low + EXCLUDED.unread_low, "
+            + "unread_high = conversation_summary.unread_high + EXCLUDED.unread_high, "
+            + "last_message_seq = GREATEST(conversation_summary.last_message_seq, EXCLUDED.last_message_seq)";
+
+    @Modifying
+    @Query(value = RECORD_MESSAGE_SQL, nativeQuery = true)
+    void recordMessage(@Param("low") Long low, @Param("high") Long high, @Param("messageId") Long messageId,
+            @Param("senderId") Long senderId, @Param("at") LocalDateTime at, @Param("preview") String preview,
+            @Param("unreadLow") long unreadLow, @Param("unreadHigh") long unreadHigh, @Param("seq") long seq);
+
+    // Moves the reader's watermark to the newest message and zeroes their unread counter, in
+    // one row update. Same statement as recordMessage's row lock, so a message landing
+    // concurrently is either covered by the watermark or counted as unread - never lost.
+    @Modifying
+    @Query("UPDATE ConversationSummary s SET "
+            + "s.lastReadLowId = CASE WHEN s.userLowId = :readerId THEN s.lastMessageId ELSE s.lastReadLowId END, "
+            + "s.unreadLow = CASE WHEN s.userLowId = :readerId THEN 0 ELSE s.unreadLow END, "
+            + "s.lastReadHighId = CASE WHEN s.userHighId = :readerId THEN s.lastMessageId ELSE s.lastReadHighId END, "
+            + "s.unreadHigh = CASE WHEN s.userHighId = :readerId THEN 0 ELSE s.unreadHigh END "
+            + "WHERE s.userLowId = :low AND s.userHighId = :high")
+    int markRead(@Param("low") Long low, @Param("high") Long high, @Param("readerId") Long readerId);
+
+    Optional<ConversationSummary> findByUserLowIdAndUserHighId(Long userLowId, Long userHighId);
+
+    @Query("SELECT s FROM ConversationSummary s "
+            + "WHERE (s.userLowId = :userId AND s.userHighId IN :partnerIds) "
+            + "OR (s.userHighId = :userId AND s.userLowId IN :partnerIds)")
+    List<ConversationSummary> findForUser(@Param("userId") Long userId,
+            @Param("partnerIds") Collection<Long> partnerIds);
+}
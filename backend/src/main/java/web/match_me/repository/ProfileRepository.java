@@ -7,9 +7,9 @@ import org.springframework.stereotype.Repository;
 import web.match_me.entity.Profile;
 import web.match_me.entity.User;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
-import java.util.Set;
 
 @Repository
 public interface ProfileRepository extends JpaRepository<Profile, Long> {
@@ -20,14 +20,29 @@ public interface ProfileRepository extends JpaRepository<Profile, Long> {
     boolean existsByUser(User user);
 
     /**
-     * Fetch candidate profiles in a single query:
-     * - Same location as the current user
-     * - Excluding specified user IDs (already connected, pending, dismissed)
-     * - Only complete profiles (firstName not null)
+     * Batched card loading: profiles (with users) for a set of user ids in one query,
+     * then each element collection initialised for all of them in one more query.
+     * Call the fetch methods inside the same transaction as findAllByUserIdIn.
      */
-    @Query("SELECT p FROM Profile p WHERE p.location = :location " +
-            "AND p.user.id NOT IN :excludedIds AND p.firstName IS NOT NULL")
-    List<Profile> findCandidatesByLocationExcluding(
-            @Param("location") String location,
-            @Param("excludedIds") Set<Long> excludedIds);
+    @Query("SELECT p FROM Profile p JOIN FETCH p.user WHERE p.user.id IN :userIds")
+    List<Profile> findAllByUserIdIn(@Param("userIds") Collection<Long> userIds);
+
+    @Query("SELECT DISTINCT p FROM Profile p LEFT JOIN FETCH p.interests WHERE p IN :profiles")
+    List<Profile> fetchInterests(@Param("profiles") Collection<Profile> profiles);
+
+    @Query("SELECT DISTINCT p FROM Profile p LEFT JOIN FETCH p.hobbies WHERE p IN :profiles")
+    List<Profile> fetchHobbies(@Param("profiles") Collection<Profile> profiles);
+
+    /**
+     * Bulk loads used to warm the in-memory CandidateIndex.
+     * Collections are read as (userId, value) rows instead of hydrating bags per profile.
+     */
+    @Query("SELECT p FROM Profile p JOIN FETCH p.user WHERE p.firstName IS NOT NULL")
+    List<Profile> findAllIndexable();
+
+    @Query("SELECT p.user.id, i FROM Profile p JOIN p.interests i WHERE p.firstName IS NOT NULL")
+    List<Object[]> findAllInterestRows();
+
+    @Query("SELECT p.user.id, h FROM Profile p JOIN p.hobbies h WHERE p.firstName IS NOT NULL")
+    List<Object[]> findAllHobbyRows();
 }
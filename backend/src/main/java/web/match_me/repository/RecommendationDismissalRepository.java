@@ -1,16 +1,34 @@
 package web.match_me.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import web.match_me.entity.RecommendationDismissal;
 import web.match_me.entity.User;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface RecommendationDismissalRepository extends JpaRepository<RecommendationDismissal, Long> {
-    List<RecommendationDismissal> findByUser(User user);
-
     Optional<RecommendationDismissal> findByUserAndDismissedUser(User user, User dismissedUser);
+
+    // (dismissedUserId, dismissedAt) rows, oldest first. Served by idx_dismissals_user_dismissed_at
+    @Query("SELECT d.dismissedUser.id, d.dismissedAt FROM RecommendationDismissal d "
+            + "WHERE d.user.id = :userId AND d.dismissedAt > :since ORDER BY d.dismissedAt")
+    List<Object[]> findDismissedIdsSince(@Param("userId") Long userId, @Param("since") LocalDateTime since);
+
+    // One bounded slice of expired rows per call, so each delete is a short transaction.
+    // SKIP LOCKED leaves rows a concurrent dismissUser is touching for the next run
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM recommendation_dismissals WHERE id IN ("
+            + "SELECT id FROM recommendation_dismissals WHERE dismissed_at < :cutoff "
+            + "LIMIT :batchSize FOR UPDATE SKIP LOCKED)",
+            nativeQuery = true)
+    int deleteExpiredBatch(@Param("cutoff") LocalDateTime cutoff, @Param("batchSize") int batchSize);
 }
@@ -0,0 +1,19 @@
+package web.match_me.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import web.match_me.entity.UserPresence;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface UserPresenceRepository extends JpaRepository<UserPresence, Long> {
+
+    // Executed as a JDBC batch by PresenceService. Never moves last_seen_at backwards.
+    String UPSERT_SQL = "INSERT INTO user_presence (user_id, last_seen_at) VALUES (:userId, :lastSeenAt) "
+            + "ON CONFLICT (user_id) DO UPDATE SET "
+            + "last_seen_at = GREATEST(user_presence.last_seen_at, EXCLUDED.last_seen_at)";
+
+    List<UserPresence> findByUserIdIn(Collection<Long> userIds);
+}
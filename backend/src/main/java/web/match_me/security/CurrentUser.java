@@ -0,0 +1,16 @@
+package web.match_me.security;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// The authenticated user, taken from the security principal instead of a users lookup.
+// Works on Long (the id), UserDetailsImpl, or User - a lazy reference that only hits the
+// database if a field other than the id is read. See CurrentUserArgumentResolver.
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CurrentUser {
+}
@@ -0,0 +1,50 @@
+package web.match_me.security;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.MethodParameter;
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import web.match_me.entity.User;
+import web.match_me.repository.UserRepository;
+
+// Resolves @CurrentUser parameters from the principal AuthTokenFilter put in the security
+// context (served from TokenCache), so a request never looks the user up by email
+@Component
+public class CurrentUserArgumentResolver implements HandlerMethodArgumentResolver {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        if (!parameter.hasParameterAnnotation(CurrentUser.class))
+            return false;
+        Class<?> type = parameter.getParameterType();
+        return type == Long.class || type == long.class || type == User.class
+                || type == UserDetailsImpl.class;
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+            NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof UserDetailsImpl userDetails)) {
+            // Handled by the security filter chain as a 401
+            throw new AuthenticationCredentialsNotFoundException("Not authenticated");
+        }
+
+        Class<?> type = parameter.getParameterType();
+        if (type == UserDetailsImpl.class)
+            return userDetails;
+        if (type == User.class)
+            // Proxy: getId() is free, anything else loads the row (open-in-view session)
+            return userRepository.getReferenceById(userDetails.getId());
+        return userDetails.getId();
+    }
+}
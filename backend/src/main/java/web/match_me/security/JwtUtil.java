@@ -1,5 +1,7 @@
 package web.match_me.security;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import jakarta.annotation.PostConstruct;
@@ -21,10 +23,13 @@ public class JwtUtil {
     private int jwtExpirationMs;
 
     private SecretKey key;
+    // Immutable and thread-safe - built once instead of per call
+    private JwtParser parser;
 
     @PostConstruct
     public void init() {
         this.key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parser().verifyWith(key).build();
     }
 
     public String generateToken(String username) {
@@ -37,19 +42,22 @@ public class JwtUtil {
     }
 
     public String getUserFromToken(String token) {
-        return Jwts.parser().verifyWith(key).build()
-                .parseSignedClaims(token)
+        return parser.parseSignedClaims(token)
                 .getPayload()
                 .getSubject();
     }
 
     public boolean validateJwtToken(String token) {
+        return parseClaims(token) != null;
+    }
+
+    // Verify and read the token in one parse; null if it is invalid or expired
+    public Claims parseClaims(String token) {
         try {
-            Jwts.parser().verifyWith(key).build().parseSignedClaims(token);
-            return true;
+            return parser.parseSignedClaims(token).getPayload();
         } catch (Exception e) {
             log.error("JWT validation error: {}", e.getMessage());
         }
-        return false;
+        return null;
     }
 }
@@ -0,0 +1,156 @@
+package web.match_me.security;
+
+import io.jsonwebtoken.Claims;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+import web.match_me.service.CustomUserDetailsService;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Verified tokens -> principal, so a request with a token we've already seen skips the
+// signature check and the users lookup. Keyed by the token's SHA-256, not the token itself,
+// and an entry lives until the token expires.
+// A user change (ban, email change, delete) drops that user's entries - see UserChangeListener.
+@Component
+public class TokenCache {
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private CustomUserDetailsService userDetailsService;
+
+    @Value("${security.token-cache.max-entries:50000}")
+    private int maxEntries;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    // userId -> token keys, so invalidating a user doesn't scan the whole cache
+    private final Map<Long, Set<String>> keysByUser = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    // Null when the token is invalid or expired, or the user is gone or disabled
+    public UserDetailsImpl authenticate(String token) {
+        String key = keyOf(token);
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            if (entry.expiresAt > System.currentTimeMillis()) {
+                hits.incrementAndGet();
+                return entry.principal;
+            }
+            remove(key, entry);
+        }
+        misses.incrementAndGet();
+
+        Claims claims = jwtUtil.parseClaims(token);
+        if (claims == null || claims.getExpiration() == null)
+            return null;
+        UserDetailsImpl principal;
+        try {
+            principal = ((UserDetailsImpl) userDetailsService.loadUserByUsername(claims.getSubject()))
+                    .withoutPassword();
+        } catch (UsernameNotFoundException e) {
+            return null;
+        }
+        if (!principal.isEnabled())
+            return null;
+
+        Entry created = new Entry(principal, claims.getExpiration().getTime());
+        // Index first: an invalidation racing with this put then finds the key and removes it
+        keysByUser.computeIfAbsent(principal.getId(), id -> ConcurrentHashMap.newKeySet()).add(key);
+        entries.put(key, created);
+        if (entries.size() > maxEntries)
+            evictEarliestExpiring();
+        return principal;
+    }
+
+    public void invalidateUser(Long userId) {
+        Set<String> keys = keysByUser.remove(userId);
+        if (keys == null)
+            return;
+        keys.forEach(entries::remove);
+        invalidations.incrementAndGet();
+    }
+
+    public void clear() {
+        entries.clear();
+        keysByUser.clear();
+    }
+
+    // Drop entries for tokens that have expired since they were cached
+    @Scheduled(fixedDelayString = "${security.token-cache.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        entries.forEach((key, entry) -> {
+            if (entry.expiresAt <= now)
+                remove(key, entry);
+        });
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", entries.size());
+        stats.put("users", keysByUser.size());
+        stats.put("maxEntries", maxEntries);
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("invalidations", invalidations.get());
+        return stats;
+    }
+
+    private void remove(String key, Entry entry) {
+        if (!entries.remove(key, entry))
+            return;
+        keysByUser.computeIfPresent(entry.principal.getId(), (id, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    // Trim to 90% so the sort is paid once per many inserts, not on every one
+    private synchronized void evictEarliestExpiring() {
+        if (entries.size() <= maxEntries)
+            return;
+        List<Map.Entry<String, Entry>> all = new ArrayList<>(entries.entrySet());
+        all.sort(Comparator.comparingLong(e -> e.getValue().expiresAt));
+        int target = maxEntries * 9 / 10;
+        for (int i = 0; i < all.size() - target; i++) {
+            remove(all.get(i).getKey(), all.get(i).getValue());
+        }
+    }
+
+    private static String keyOf(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class Entry {
+        final UserDetailsImpl principal;
+        final long expiresAt;
+
+        Entry(UserDetailsImpl principal, long expiresAt) {
+            this.principal = principal;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package web.match_me.security;
+
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import web.match_me.entity.User;
+
+// Keeps TokenCache honest when a user is banned (enabled = false), changes email or is deleted
+// through JPA. Evicts right away and again after commit, so a request that re-cached the old
+// row in between is dropped too. Bulk JPQL/native updates of users bypass this - call
+// TokenCache.invalidateUser (or POST /admin/token-cache/evict/{userId}) for those.
+// Instantiated by Hibernate through Spring's bean container; lazy so building the
+// EntityManagerFactory doesn't pull in the cache (which needs the user repository).
+public class UserChangeListener {
+
+    @Autowired
+    @Lazy
+    private TokenCache tokenCache;
+
+    @PostUpdate
+    @PostRemove
+    public void userChanged(User user) {
+        if (tokenCache == null)
+            return;
+        Long userId = user.getId();
+        tokenCache.invalidateUser(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    tokenCache.invalidateUser(userId);
+                }
+            });
+        }
+    }
+}
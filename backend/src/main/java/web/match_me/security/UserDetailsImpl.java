@@ -19,6 +19,7 @@ public class UserDetailsImpl implements UserDetails {
     private String email;
     @JsonIgnore
     private String password;
+    private boolean enabled = true;
 
     public UserDetailsImpl(Long id, String email, String password) {
         this.id = id;
@@ -26,11 +27,22 @@ public class UserDetailsImpl implements UserDetails {
         this.password = password;
     }
 
+    public UserDetailsImpl(Long id, String email, String password, boolean enabled) {
+        this(id, email, password);
+        this.enabled = enabled;
+    }
+
     public static UserDetailsImpl build(User user) {
         return new UserDetailsImpl(
                 user.getId(),
                 user.getEmail(),
-                user.getPassword());
+                user.getPassword(),
+                user.isEnabled());
+    }
+
+    // Principal for the token cache - no password hash kept around for the token's lifetime
+    public UserDetailsImpl withoutPassword() {
+        return new UserDetailsImpl(id, email, null, enabled);
     }
 
     public Long getId() {
@@ -73,7 +85,7 @@ public class UserDetailsImpl implements UserDetails {
 
     @Override
     public boolean isEnabled() {
-        return true;
+        return enabled;
     }
 
     @Override
@@ -3,9 +3,12 @@ package web.match_me.security;
 import web.match_me.service.CustomUserDetailsService;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -13,8 +16,14 @@ import org.springframework.security.config.annotation.web.configurers.AbstractHt
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
 @Configuration
 public class WebSecurityConfig {
 
@@ -23,6 +32,10 @@ public class WebSecurityConfig {
     @Autowired
     private AuthEntryPointJwt unauthorizedHandler;
 
+    // Accounts allowed to call /admin/** (comma-separated emails). Empty means nobody.
+    @Value("${security.admin-emails:}")
+    private String adminEmails;
+
     @Bean
     public AuthTokenFilter authenticationJwtTokenFilter() {
         return new AuthTokenFilter();
@@ -50,6 +63,8 @@ public class WebSecurityConfig {
                 .authorizeHttpRequests(auth -> auth
                         // allow these paths to be accessed by everybody
                         .requestMatchers("/signup", "/signin", "/uploads/**", "/ws/**").permitAll()
+                        // operational endpoints: other users' caches, repairs, seeding
+                        .requestMatchers("/admin/**").access(adminOnly())
                         // all other paths need the used to be logged in
                         .requestMatchers("/**").authenticated());
 
@@ -57,4 +72,16 @@ public class WebSecurityConfig {
         return http.build();
     }
 
+    private AuthorizationManager<RequestAuthorizationContext> adminOnly() {
+        Set<String> allowed = Arrays.stream(adminEmails.split(","))
+                .map(email -> email.trim().toLowerCase(Locale.ROOT))
+                .filter(email -> !email.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+        return (authentication, context) -> new AuthorizationDecision(
+                authentication.get() != null
+                        && authentication.get().getPrincipal() instanceof UserDetailsImpl user
+                        && user.getEmail() != null
+                        && allowed.contains(user.getEmail().toLowerCase(Locale.ROOT)));
+    }
+
 }
@@ -0,0 +1,145 @@
+package web.match_me.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import web.match_me.entity.Profile;
+import web.match_me.repository.ProfileRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Resident candidate pool for the matching engine.
+// Loaded once at startup, then kept current by ProfileService on every profile write,
+// so recommendations are scored without loading Profile entities per request.
+// Profiles are reachable both by location name and through a lat/lon grid.
+@Component
+@Slf4j
+public class CandidateIndex {
+
+    // location -> (userId -> features)
+    private final Map<String, Map<Long, ProfileFeatures>> byLocation = new ConcurrentHashMap<>();
+    private final Map<Long, ProfileFeatures> byUser = new ConcurrentHashMap<>();
+    private final FeatureDictionary dictionary = new FeatureDictionary();
+    private GeoGrid geoGrid;
+
+    @Autowired
+    private ProfileRepository profileRepository;
+
+    @Value("${matching.geo.cell-degrees:0.25}")
+    private double cellDegrees;
+
+    @PostConstruct
+    public void init() {
+        geoGrid = new GeoGrid(cellDegrees);
+        rebuild();
+    }
+
+    public synchronized void rebuild() {
+        Map<Long, List<String>> interests = groupRows(profileRepository.findAllInterestRows());
+        Map<Long, List<String>> hobbies = groupRows(profileRepository.findAllHobbyRows());
+
+        byLocation.clear();
+        byUser.clear();
+        geoGrid.clear();
+        for (Profile profile : profileRepository.findAllIndexable()) {
+            Long userId = profile.getUser().getId();
+            put(ProfileFeatures.compile(profile, interests.get(userId), hobbies.get(userId), dictionary));
+        }
+        log.info("Candidate index loaded: {} profiles in {} locations, {} dictionary terms",
+                byUser.size(), byLocation.size(), dictionary.size());
+    }
+
+    // Called after a profile has been saved; profiles without a first name are not candidates
+    public synchronized void index(Profile profile) {
+        Long userId = profile.getUser().getId();
+        if (profile.getFirstName() == null) {
+            remove(userId);
+            return;
+        }
+        put(ProfileFeatures.compile(profile, dictionary));
+    }
+
+    public synchronized void remove(Long userId) {
+        ProfileFeatures previous = byUser.remove(userId);
+        if (previous != null) {
+            geoGrid.remove(previous);
+        }
+        if (previous != null && previous.getLocation() != null) {
+            Map<Long, ProfileFeatures> partition = byLocation.get(previous.getLocation());
+            if (partition != null) {
+                partition.remove(userId);
+            }
+        }
+    }
+
+    public ProfileFeatures get(Long userId) {
+        return byUser.get(userId);
+    }
+
+    // Live view of one location partition; safe to iterate while writes happen
+    public Collection<ProfileFeatures> candidatesIn(String location) {
+        if (location == null) {
+            return Collections.emptyList();
+        }
+        Map<Long, ProfileFeatures> partition = byLocation.get(location);
+        return partition != null ? partition.values() : Collections.emptyList();
+    }
+
+    // Everyone within radiusKm whatever their city is called, plus same-city profiles
+    // outside the radius or without coordinates. Each profile appears once; center included.
+    public List<ProfileFeatures> candidatesNear(ProfileFeatures center, double radiusKm) {
+        List<ProfileFeatures> candidates = new ArrayList<>();
+        GeoGrid.Query nearby = center.hasCoordinates() ? new GeoGrid.Query(center, radiusKm) : null;
+        if (nearby != null) {
+            geoGrid.forEachWithin(nearby, candidates::add);
+        }
+        String location = center.getLocation();
+        if (location != null && !location.isBlank()) {
+            for (ProfileFeatures other : candidatesIn(location)) {
+                if (nearby != null && nearby.contains(other))
+                    continue; // already collected by the radius scan
+                candidates.add(other);
+            }
+        }
+        return candidates;
+    }
+
+    public int size() {
+        return byUser.size();
+    }
+
+    private void put(ProfileFeatures features) {
+        ProfileFeatures previous = byUser.put(features.getUserId(), features);
+        if (previous != null) {
+            geoGrid.remove(previous);
+        }
+        geoGrid.add(features);
+        if (previous != null && previous.getLocation() != null
+                && !previous.getLocation().equals(features.getLocation())) {
+            Map<Long, ProfileFeatures> oldPartition = byLocation.get(previous.getLocation());
+            if (oldPartition != null) {
+                oldPartition.remove(features.getUserId());
+            }
+        }
+        if (features.getLocation() != null) {
+            byLocation.computeIfAbsent(features.getLocation(), k -> new ConcurrentHashMap<>())
+                    .put(features.getUserId(), features);
+        }
+    }
+
+    private static Map<Long, List<String>> groupRows(List<Object[]> rows) {
+        Map<Long, List<String>> grouped = new HashMap<>();
+        for (Object[] row : rows) {
+            grouped.computeIfAbsent((Long) row[0], k -> new ArrayList<>()).add((String) row[1]);
+        }
+        return grouped;
+    }
+}
@@ -0,0 +1,87 @@
+package web.match_me.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.LongPredicate;
+
+// Scores candidates against one profile and keeps the best K.
+// Small candidate sets run on the calling thread; large ones are split across the
+// common fork-join pool, each leaf filling its own TopKSelector before a pairwise merge.
+@Component
+public class CandidateRanker {
+
+    // Minimum score threshold to avoid weak recommendations
+    static final double MIN_SCORE = 5;
+    private static final int LEAF_SIZE = 4096;
+
+    private final int topK;
+    private final int parallelThreshold;
+
+    @Autowired
+    public CandidateRanker(@Value("${matching.top-k:10}") int topK,
+            @Value("${matching.parallel-threshold:20000}") int parallelThreshold) {
+        this.topK = topK;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    // Best first, ties broken by lower user id
+    public List<Long> rank(ProfileFeatures current, List<ProfileFeatures> candidates, LongPredicate excluded) {
+        TopKSelector best = candidates.size() > parallelThreshold
+                ? ForkJoinPool.commonPool().invoke(new RankTask(current, candidates, excluded, topK, 0, candidates.size()))
+                : scoreRange(current, candidates, excluded, topK, 0, candidates.size());
+        return best.drainSortedIds();
+    }
+
+    private static TopKSelector scoreRange(ProfileFeatures current, List<ProfileFeatures> candidates,
+            LongPredicate excluded, int k, int from, int to) {
+        TopKSelector selector = new TopKSelector(k);
+        for (int i = from; i < to; i++) {
+            ProfileFeatures other = candidates.get(i);
+            if (excluded.test(other.getUserId()))
+                continue;
+            double score = ScoringKernel.score(current, other);
+            if (score > MIN_SCORE) {
+                selector.offer(other.getUserId(), score);
+            }
+        }
+        return selector;
+    }
+
+    private static final class RankTask extends RecursiveTask<TopKSelector> {
+        private final ProfileFeatures current;
+        private final List<ProfileFeatures> candidates;
+        private final LongPredicate excluded;
+        private final int k;
+        private final int from;
+        private final int to;
+
+        RankTask(ProfileFeatures current, List<ProfileFeatures> candidates, LongPredicate excluded,
+                int k, int from, int to) {
+            this.current = current;
+            this.candidates = candidates;
+            this.excluded = excluded;
+            this.k = k;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected TopKSelector compute() {
+            if (to - from <= LEAF_SIZE) {
+                return scoreRange(current, candidates, excluded, k, from, to);
+            }
+            int mid = (from + to) >>> 1;
+            RankTask left = new RankTask(current, candidates, excluded, k, from, mid);
+            left.fork();
+            TopKSelector right = new RankTask(current, candidates, excluded, k, mid, to).compute();
+            TopKSelector merged = left.join();
+            merged.merge(right);
+            return merged;
+        }
+    }
+}
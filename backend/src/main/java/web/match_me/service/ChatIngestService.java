@@ -0,0 +1,285 @@
+package web.match_me.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import web.match_me.entity.ChatMessage;
+import web.match_me.entity.ConversationSummary;
+import web.match_me.repository.ConversationSummaryRepository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// Optional write-behind path for /messages/send (chat.ingest.write-behind=true).
+// A message gets its id from the pooled sequence and is queued right away. One writer thread
+// drains the queue and commits batches of up to batch-size messages, or whatever arrived within
+// flush-interval-ms, as a single JDBC batch plus the conversation_summary upserts. Seq numbers
+// are assigned in that same transaction, in queue order, so a refused or failed message never
+// uses one up. That is one
+// pooled connection for the whole stream instead of one per send.
+// The queue is bounded: when it stays full for offer-timeout-ms, submit refuses the message.
+// Callers publish a message only once its persisted future completes; a failed batch fails
+// the futures of all its messages, and their seq numbers are left as a gap.
+@Service
+@Slf4j
+public class ChatIngestService {
+
+    private static final String INSERT_SQL = "INSERT INTO chat_messages "
+            + "(id, sender_id, receiver_id, content, timestamp, seq, user_low_id, user_high_id) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ConversationSeqAllocator conversationSeqAllocator;
+
+    @Value("${chat.ingest.write-behind:false}")
+    private boolean writeBehind;
+
+    @Value("${chat.ingest.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${chat.ingest.batch-size:200}")
+    private int batchSize;
+
+    @Value("${chat.ingest.flush-interval-ms:20}")
+    private long flushIntervalMs;
+
+    @Value("${chat.ingest.offer-timeout-ms:100}")
+    private long offerTimeoutMs;
+
+    private BlockingQueue<PendingMessage> queue;
+    private PooledIdAllocator ids;
+    private Thread writer;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void init() {
+        if (!writeBehind)
+            return;
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        ids = new PooledIdAllocator(jdbcTemplate, ChatMessage.ID_SEQUENCE, ChatMessage.ALLOCATION_SIZE);
+        running = true;
+        writer = new Thread(this::runWriter, "chat-ingest-writer");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("Chat write-behind enabled: batch {} / {} ms, queue {}", batchSize, flushIntervalMs, queueCapacity);
+    }
+
+    public boolean isEnabled() {
+        return writeBehind;
+    }
+
+    // Returns null when the queue is full (backpressure) - the caller should answer "retry later"
+    public PendingMessage submit(Long senderId, Long receiverId, String content) throws InterruptedException {
+        PendingMessage message = new PendingMessage(ids.next(), senderId, receiverId, content, LocalDateTime.now());
+        if (!running || !queue.offer(message, offerTimeoutMs, TimeUnit.MILLISECONDS))
+            return null;
+        // Raced with shutdown - take it back unless the writer already has it
+        if (!running && queue.remove(message))
+            return null;
+        return message;
+    }
+
+    public int getQueueDepth() {
+        return queue == null ? 0 : queue.size();
+    }
+
+    // Flush what's queued before the datasource goes away. Whatever the writer didn't get to
+    // within the timeout is failed, so no sender waits on a message that will never be written.
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (writer == null)
+            return;
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+        List<PendingMessage> unflushed = new ArrayList<>();
+        queue.drainTo(unflushed);
+        if (!unflushed.isEmpty()) {
+            log.warn("Chat ingest stopped with {} unflushed messages", unflushed.size());
+            IllegalStateException stopped = new IllegalStateException("Chat ingest stopped");
+            unflushed.forEach(m -> m.getPersisted().completeExceptionally(stopped));
+        }
+    }
+
+    private void runWriter() {
+        List<PendingMessage> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingMessage first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null)
+                    continue;
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0)
+                        break;
+                    PendingMessage next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null)
+                        break;
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                // Leave the rest of the queue to shutdown; fail what was already taken from it
+                running = false;
+                batch.forEach(m -> m.getPersisted().completeExceptionally(e));
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<PendingMessage> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                assignSeqs(batch);
+                jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, m) -> {
+                    ps.setLong(1, m.getId());
+                    ps.setLong(2, m.getSenderId());
+                    ps.setLong(3, m.getReceiverId());
+                    ps.setString(4, m.getContent());
+                    ps.setTimestamp(5, Timestamp.valueOf(m.getTimestamp()));
+                    ps.setLong(6, m.getSeq());
+                    ps.setLong(7, Math.min(m.getSenderId(), m.getReceiverId()));
+                    ps.setLong(8, Math.max(m.getSenderId(), m.getReceiverId()));
+                });
+                namedParameterJdbcTemplate.batchUpdate(ConversationSummaryRepository.RECORD_MESSAGE_SQL,
+                        summarize(batch));
+            });
+            batch.forEach(m -> m.getPersisted().complete(null));
+        } catch (Exception e) {
+            log.error("Failed to persist a batch of {} chat messages", batch.size(), e);
+            // Rolled back along with the sequence rows
+            batch.forEach(m -> m.seq = 0);
+            batch.forEach(m -> m.getPersisted().completeExceptionally(e));
+        }
+    }
+
+    // One claim per conversation, in pair order like the summary upserts, numbered in queue order
+    private void assignSeqs(List<PendingMessage> batch) {
+        Map<String, List<PendingMessage>> byPair = new TreeMap<>();
+        for (PendingMessage m : batch) {
+            byPair.computeIfAbsent(pairKey(m), k -> new ArrayList<>()).add(m);
+        }
+        for (List<PendingMessage> messages : byPair.values()) {
+            PendingMessage first = messages.get(0);
+            long last = conversationSeqAllocator.claim(Math.min(first.getSenderId(), first.getReceiverId()),
+                    Math.max(first.getSenderId(), first.getReceiverId()), messages.size());
+            long seq = last - messages.size();
+            for (PendingMessage m : messages) {
+                m.seq = ++seq;
+            }
+        }
+    }
+
+    private static String pairKey(PendingMessage m) {
+        return String.format("%019d:%019d", Math.min(m.getSenderId(), m.getReceiverId()),
+                Math.max(m.getSenderId(), m.getReceiverId()));
+    }
+
+    // One upsert per conversation in the batch, in pair order so concurrent writers lock rows
+    // in the same order
+    private static SqlParameterSource[] summarize(List<PendingMessage> batch) {
+        Map<String, MapSqlParameterSource> byPair = new TreeMap<>();
+        for (PendingMessage m : batch) {
+            long low = Math.min(m.getSenderId(), m.getReceiverId());
+            long high = Math.max(m.getSenderId(), m.getReceiverId());
+            MapSqlParameterSource params = byPair.computeIfAbsent(pairKey(m), k ->
+                    new MapSqlParameterSource()
+                            .addValue("low", low)
+                            .addValue("high", high)
+                            .addValue("messageId", 0L)
+                            .addValue("unreadLow", 0L)
+                            .addValue("unreadHigh", 0L)
+                            .addValue("seq", 0L));
+            // Ids are allocated before queueing, so arrival order can differ slightly - keep the max
+            if (m.getId() > (Long) params.getValue("messageId")) {
+                params.addValue("messageId", m.getId())
+                        .addValue("senderId", m.getSenderId())
+                        .addValue("at", m.getTimestamp())
+                        .addValue("preview", ConversationSummary.preview(m.getContent()));
+            }
+            params.addValue("seq", Math.max(m.getSeq(), (Long) params.getValue("seq")));
+            String side = m.getReceiverId() == low ? "unreadLow" : "unreadHigh";
+            params.addValue(side, (Long) params.getValue(side) + 1);
+        }
+        return byPair.values().toArray(new SqlParameterSource[0]);
+    }
+
+    public static class PendingMessage {
+        private final long id;
+        // Assigned by the writer when the batch is flushed
+        private volatile long seq;
+        private final Long senderId;
+        private final Long receiverId;
+        private final String content;
+        private final LocalDateTime timestamp;
+        // Completes when the batch holding this message has committed
+        private final CompletableFuture<Void> persisted = new CompletableFuture<>();
+
+        PendingMessage(long id, Long senderId, Long receiverId, String content, LocalDateTime timestamp) {
+            this.id = id;
+            this.senderId = senderId;
+            this.receiverId = receiverId;
+            this.content = content;
+            this.timestamp = timestamp;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        // Valid once persisted has completed
+        public long getSeq() {
+            return seq;
+        }
+
+        public Long getSenderId() {
+            return senderId;
+        }
+
+        public Long getReceiverId() {
+            return receiverId;
+        }
+
+        public String getContent() {
+            return content;
+        }
+
+        public LocalDateTime getTimestamp() {
+            return timestamp;
+        }
+
+        public CompletableFuture<Void> getPersisted() {
+            return persisted;
+        }
+    }
+}
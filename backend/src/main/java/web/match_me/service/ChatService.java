@@ -2,12 +2,18 @@ package web.match_me.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import web.match_me.entity.ChatMessage;
+import web.match_me.entity.ConversationSummary;
 import web.match_me.entity.User;
 import web.match_me.repository.ChatMessageRepository;
+import web.match_me.repository.ConversationSummaryRepository;
 import web.match_me.repository.UserRepository;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 @Service
@@ -19,18 +25,38 @@ public class ChatService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private ConversationSummaryRepository conversationSummaryRepository;
+
+    @Autowired
+    private ConversationSeqAllocator conversationSeqAllocator;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // Message, its seq and the conversation summary commit together. Taking the seq locks the
+    // conversation's sequence row, so concurrent sends in one conversation commit in seq order.
     public ChatMessage saveMessage(Long senderId, Long receiverId, String content) {
-        User sender = userRepository.findById(senderId).orElseThrow();
-        User receiver = userRepository.findById(receiverId).orElseThrow();
+        return transactionTemplate.execute(status -> {
+            long seq = conversationSeqAllocator.next(senderId, receiverId);
+            // Callers have checked the pair is connected, so both users exist - no need to load them
+            User sender = userRepository.getReferenceById(senderId);
+            User receiver = userRepository.getReferenceById(receiverId);
 
-        ChatMessage message = new ChatMessage();
-        message.setSender(sender);
-        message.setReceiver(receiver);
-        message.setContent(content);
-        message.setTimestamp(LocalDateTime.now());
-        message.setRead(false);
+            ChatMessage message = new ChatMessage();
+            message.setSender(sender);
+            message.setReceiver(receiver);
+            message.setContent(content);
+            message.setTimestamp(LocalDateTime.now());
+            message.setSeq(seq);
 
-        return chatMessageRepository.save(message);
+            ChatMessage saved = chatMessageRepository.save(message);
+            long low = Math.min(senderId, receiverId);
+            long high = Math.max(senderId, receiverId);
+            conversationSummaryRepository.recordMessage(low, high, saved.getId(), senderId, saved.getTimestamp(),
+                    ConversationSummary.preview(content), receiverId == low ? 1 : 0, receiverId == high ? 1 : 0, seq);
+            return saved;
+        });
     }
 
     public List<ChatMessage> getChatHistory(User user1, Long user2Id) {
@@ -38,21 +64,71 @@ public class ChatService {
         return chatMessageRepository.findChatHistory(user1, user2);
     }
 
-    public org.springframework.data.domain.Page<ChatMessage> getChatHistoryPaged(User user1, Long user2Id, int page,
-            int size) {
-        User user2 = userRepository.findById(user2Id).orElseThrow();
-        org.springframework.data.domain.Pageable pageable = org.springframework.data.domain.PageRequest.of(page, size);
-        return chatMessageRepository.findChatHistoryPaged(user1, user2, pageable);
+    // One page of a conversation, oldest first. No cursor: the latest messages; beforeSeq: older
+    // ones when scrolling up; afterSeq: everything newer, for catching up after a reconnect.
+    // Reads size + 1 rows to know whether there is more, so the cost doesn't depend on how deep
+    // the page is.
+    public HistoryPage getChatHistoryPage(Long userId, Long otherUserId, Long beforeSeq, Long afterSeq, int size) {
+        long low = Math.min(userId, otherUserId);
+        long high = Math.max(userId, otherUserId);
+        org.springframework.data.domain.Pageable limit = org.springframework.data.domain.PageRequest.of(0, size + 1);
+
+        List<ChatMessage> rows;
+        ConversationSummary summary = conversationSummaryRepository.findByUserLowIdAndUserHighId(low, high)
+                .orElse(null);
+        if (afterSeq != null) {
+            rows = chatMessageRepository.findInConversationAfter(low, high, afterSeq, limit);
+        } else if (beforeSeq != null) {
+            rows = chatMessageRepository.findInConversationBefore(low, high, beforeSeq, limit);
+        } else {
+            rows = chatMessageRepository.findLatestInConversation(low, high, limit);
+        }
+
+        boolean hasMore = rows.size() > size;
+        List<ChatMessage> messages = new ArrayList<>(hasMore ? rows.subList(0, size) : rows);
+        if (afterSeq == null) {
+            // Fetched newest first
+            Collections.reverse(messages);
+        }
+        return new HistoryPage(messages, hasMore, summary);
     }
 
-    public void markMessagesAsRead(User receiver, Long senderId) {
-        User sender = userRepository.findById(senderId).orElseThrow();
-        List<ChatMessage> history = chatMessageRepository.findChatHistory(sender, receiver);
-        for (ChatMessage msg : history) {
-            if (msg.getReceiver().equals(receiver) && !msg.isRead()) {
-                msg.setRead(true);
-                chatMessageRepository.save(msg);
-            }
+    // Marks everything from sender to receiver read: a single conversation_summary row update,
+    // however many messages were unread
+    @Transactional
+    public void markMessagesAsRead(Long receiverId, Long senderId) {
+        conversationSummaryRepository.markRead(Math.min(receiverId, senderId), Math.max(receiverId, senderId),
+                receiverId);
+    }
+
+    public static class HistoryPage {
+        private final List<ChatMessage> messages;
+        private final boolean hasMore;
+        private final ConversationSummary summary;
+
+        HistoryPage(List<ChatMessage> messages, boolean hasMore, ConversationSummary summary) {
+            this.messages = messages;
+            this.hasMore = hasMore;
+            this.summary = summary;
+        }
+
+        // Read by its receiver, per the receiver's watermark
+        public boolean isRead(ChatMessage message) {
+            return summary != null && summary.isReadBy(message.getReceiver().getId(), message.getId());
+        }
+
+        // Newest message id the given user has read in this conversation
+        public long getLastReadBy(Long userId) {
+            return summary == null ? 0 : summary.getLastReadBy(userId);
+        }
+
+        public List<ChatMessage> getMessages() {
+            return messages;
+        }
+
+        // More messages beyond this page in the direction that was asked for
+        public boolean hasMore() {
+            return hasMore;
         }
     }
 }
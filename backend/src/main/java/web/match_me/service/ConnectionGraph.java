@@ -0,0 +1,167 @@
+package web.match_me.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import web.match_me.repository.ConnectionRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Resident adjacency of ACCEPTED connections: userId -> sorted long[] of partner ids.
+// Loaded once at startup, then kept current by ConnectionService on accept and on
+// reject/disconnect. Arrays are never mutated - an update swaps in a new copy - so
+// permission checks on the chat path read them without locking.
+@Component
+@Slf4j
+public class ConnectionGraph {
+
+    private static final long[] NONE = new long[0];
+
+    private final Map<Long, long[]> partners = new ConcurrentHashMap<>();
+
+    @Autowired
+    private ConnectionRepository connectionRepository;
+
+    @PostConstruct
+    public void init() {
+        Map<Long, long[]> loaded = loadFromDatabase();
+        partners.clear();
+        partners.putAll(loaded);
+        log.info("Connection graph loaded: {} users, {} connections", partners.size(), edgeCount(partners));
+    }
+
+    public boolean areConnected(Long userId, Long otherUserId) {
+        long[] adjacent = partners.get(userId);
+        return adjacent != null && Arrays.binarySearch(adjacent, otherUserId) >= 0;
+    }
+
+    // Sorted, do not modify
+    public long[] partnersOf(Long userId) {
+        return partners.getOrDefault(userId, NONE);
+    }
+
+    public void connected(Long userId, Long otherUserId) {
+        partners.compute(userId, (id, adjacent) -> with(adjacent, otherUserId));
+        partners.compute(otherUserId, (id, adjacent) -> with(adjacent, userId));
+    }
+
+    public void disconnected(Long userId, Long otherUserId) {
+        partners.computeIfPresent(userId, (id, adjacent) -> without(adjacent, otherUserId));
+        partners.computeIfPresent(otherUserId, (id, adjacent) -> without(adjacent, userId));
+    }
+
+    // Compares memory with a fresh DB load. Writes racing with the check can show up as
+    // transient differences; repair swaps the DB view in.
+    public Map<String, Object> checkConsistency(boolean repair) {
+        Map<Long, long[]> expected = loadFromDatabase();
+        List<List<Long>> missing = diff(expected, partners);
+        List<List<Long>> unexpected = diff(partners, expected);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("users", partners.size());
+        report.put("connections", edgeCount(partners));
+        report.put("databaseConnections", edgeCount(expected));
+        report.put("missing", missing);
+        report.put("unexpected", unexpected);
+        report.put("consistent", missing.isEmpty() && unexpected.isEmpty());
+        if (repair && !(missing.isEmpty() && unexpected.isEmpty())) {
+            partners.keySet().retainAll(expected.keySet());
+            partners.putAll(expected);
+            report.put("repaired", true);
+            log.warn("Connection graph repaired: {} missing, {} unexpected edges", missing.size(), unexpected.size());
+        }
+        return report;
+    }
+
+    private Map<Long, long[]> loadFromDatabase() {
+        List<Object[]> rows = connectionRepository.findAcceptedPairs();
+        Map<Long, Integer> degree = new HashMap<>();
+        for (Object[] row : rows) {
+            degree.merge((Long) row[0], 1, Integer::sum);
+            degree.merge((Long) row[1], 1, Integer::sum);
+        }
+        Map<Long, long[]> adjacency = new HashMap<>(degree.size() * 2);
+        Map<Long, Integer> filled = new HashMap<>(degree.size() * 2);
+        for (Object[] row : rows) {
+            Long a = (Long) row[0];
+            Long b = (Long) row[1];
+            append(adjacency, filled, degree, a, b);
+            append(adjacency, filled, degree, b, a);
+        }
+        // Sort, and drop duplicates left by duplicate connection rows
+        adjacency.replaceAll((id, adjacent) -> {
+            Arrays.sort(adjacent);
+            int n = 0;
+            for (int i = 0; i < adjacent.length; i++) {
+                if (i == 0 || adjacent[i] != adjacent[i - 1]) {
+                    adjacent[n++] = adjacent[i];
+                }
+            }
+            return n == adjacent.length ? adjacent : Arrays.copyOf(adjacent, n);
+        });
+        return adjacency;
+    }
+
+    private static void append(Map<Long, long[]> adjacency, Map<Long, Integer> filled, Map<Long, Integer> degree,
+            Long from, Long to) {
+        long[] adjacent = adjacency.computeIfAbsent(from, id -> new long[degree.get(id)]);
+        int i = filled.merge(from, 1, Integer::sum) - 1;
+        adjacent[i] = to;
+    }
+
+    private static long[] with(long[] adjacent, long id) {
+        if (adjacent == null)
+            return new long[] { id };
+        int i = Arrays.binarySearch(adjacent, id);
+        if (i >= 0)
+            return adjacent;
+        i = -i - 1;
+        long[] copy = new long[adjacent.length + 1];
+        System.arraycopy(adjacent, 0, copy, 0, i);
+        copy[i] = id;
+        System.arraycopy(adjacent, i, copy, i + 1, adjacent.length - i);
+        return copy;
+    }
+
+    // Returns null when the last partner goes, which removes the entry
+    private static long[] without(long[] adjacent, long id) {
+        int i = Arrays.binarySearch(adjacent, id);
+        if (i < 0)
+            return adjacent;
+        if (adjacent.length == 1)
+            return null;
+        long[] copy = new long[adjacent.length - 1];
+        System.arraycopy(adjacent, 0, copy, 0, i);
+        System.arraycopy(adjacent, i + 1, copy, i, adjacent.length - i - 1);
+        return copy;
+    }
+
+    // Edges (a < b) present in left but not in right
+    private static List<List<Long>> diff(Map<Long, long[]> left, Map<Long, long[]> right) {
+        List<List<Long>> edges = new ArrayList<>();
+        for (Map.Entry<Long, long[]> entry : left.entrySet()) {
+            long[] other = right.getOrDefault(entry.getKey(), NONE);
+            for (long partner : entry.getValue()) {
+                if (entry.getKey() < partner && Arrays.binarySearch(other, partner) < 0) {
+                    edges.add(List.of(entry.getKey(), partner));
+                }
+            }
+        }
+        return edges;
+    }
+
+    private static long edgeCount(Map<Long, long[]> adjacency) {
+        long total = 0;
+        for (long[] adjacent : adjacency.values()) {
+            total += adjacent.length;
+        }
+        return total / 2;
+    }
+}
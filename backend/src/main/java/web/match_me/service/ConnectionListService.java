@@ -0,0 +1,81 @@
+package web.match_me.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import web.match_me.entity.Connection;
+import web.match_me.entity.ConversationSummary;
+import web.match_me.entity.Profile;
+import web.match_me.entity.User;
+import web.match_me.repository.ConnectionRepository;
+import web.match_me.repository.ConversationSummaryRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Read path behind GET /connections. Everything the cards need comes from a fixed number
+// of set-based queries (connections + partners, 3 for profiles, 1 for conversation summaries),
+// no matter how many connections the user has.
+@Service
+public class ConnectionListService {
+
+    @Autowired
+    private ConnectionRepository connectionRepository;
+
+    @Autowired
+    private ConversationSummaryRepository conversationSummaryRepository;
+
+    @Autowired
+    private ProfileService profileService;
+
+    @Transactional(readOnly = true)
+    public List<Entry> getConnectionList(Long userId) {
+        List<Connection> connections = connectionRepository.findAcceptedWithUsers(userId);
+        if (connections.isEmpty()) {
+            return List.of();
+        }
+
+        List<Long> partnerIds = new ArrayList<>(connections.size());
+        for (Connection c : connections) {
+            partnerIds.add(partnerOf(c, userId).getId());
+        }
+        Map<Long, Profile> profiles = profileService.getProfilesByUserIds(partnerIds);
+
+        Map<Long, ConversationSummary> summaries = new HashMap<>();
+        for (ConversationSummary summary : conversationSummaryRepository.findForUser(userId, partnerIds)) {
+            summaries.put(summary.getPartnerOf(userId), summary);
+        }
+
+        List<Entry> entries = new ArrayList<>(connections.size());
+        for (Connection c : connections) {
+            User partner = partnerOf(c, userId);
+            ConversationSummary summary = summaries.get(partner.getId());
+            entries.add(new Entry(c, partner, profiles.get(partner.getId()),
+                    summary != null ? summary.getLastMessageAt() : null,
+                    summary != null ? summary.getUnreadFor(userId) : 0,
+                    summary != null ? summary.getLastMessageSeq() : 0));
+        }
+        return entries;
+    }
+
+    private static User partnerOf(Connection c, Long userId) {
+        return c.getRequester().getId().equals(userId) ? c.getReceiver() : c.getRequester();
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Entry {
+        private final Connection connection;
+        private final User partner;
+        // null if the partner has no profile yet
+        private final Profile profile;
+        private final LocalDateTime lastMessageSentAt;
+        private final long unreadCount;
+        private final long lastMessageSeq;
+    }
+}
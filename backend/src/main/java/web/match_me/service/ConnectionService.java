@@ -1,14 +1,16 @@
 package web.match_me.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import web.match_me.entity.Connection;
 import web.match_me.entity.User;
+import web.match_me.event.ConnectionChangedEvent;
 import web.match_me.repository.ConnectionRepository;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Optional;
 
 @Service
 public class ConnectionService {
@@ -20,10 +22,22 @@ public class ConnectionService {
     @Autowired
     private ConnectionRepository connectionRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ExclusionIndex exclusionIndex;
+
+    @Autowired
+    private ConnectionGraph connectionGraph;
+
+    // Memory lookup - called on every chat send, typing event and profile view
     public boolean areConnected(User user1, User user2) {
-        return connectionRepository.findConnectionBetweenUsers(user1, user2)
-                .map(c -> c.getStatus() == Connection.ConnectionStatus.ACCEPTED)
-                .orElse(false);
+        return areConnected(user1.getId(), user2.getId());
+    }
+
+    public boolean areConnected(Long userId, Long otherUserId) {
+        return connectionGraph.areConnected(userId, otherUserId);
     }
 
     // checking active request "PENDING"
@@ -34,29 +48,34 @@ public class ConnectionService {
     }
 
     // requests
+    // requester may be a lazy reference (@CurrentUser) - only its id is read
     public Connection sendConnectionRequest(User requester, User receiver) {
-        if (requester.equals(receiver)) {
+        if (requester.getId().equals(receiver.getId())) {
             throw new IllegalArgumentException("Cannot connect with self");
         }
-        Optional<Connection> existing = connectionRepository.findConnectionBetweenUsers(requester, receiver);
-        if (existing.isPresent()) {
-            throw new IllegalStateException("Connection or request already exists");
-        }
-
         Connection connection = new Connection();
         connection.setRequester(requester);
         connection.setReceiver(receiver);
         connection.setStatus(Connection.ConnectionStatus.PENDING);
         connection.setCreatedAt(LocalDateTime.now());
 
-        return connectionRepository.save(connection);
+        // The pair's unique key decides concurrent duplicates - no check-then-insert
+        Connection saved;
+        try {
+            saved = connectionRepository.saveAndFlush(connection);
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalStateException("Connection or request already exists");
+        }
+        exclusionIndex.connectionRequested(requester.getId(), receiver.getId());
+        eventPublisher.publishEvent(new ConnectionChangedEvent(requester.getId(), receiver.getId()));
+        return saved;
     }
 
-    public Connection acceptConnectionRequest(Long connectionId, User receiver) {
+    public Connection acceptConnectionRequest(Long connectionId, Long receiverId) {
         Connection connection = connectionRepository.findById(connectionId)
                 .orElseThrow(() -> new IllegalArgumentException("Connection not found"));
 
-        if (!connection.getReceiver().equals(receiver)) {
+        if (!connection.getReceiver().getId().equals(receiverId)) {
             throw new SecurityException("Not authorized to accept this request");
         }
         if (connection.getStatus() != Connection.ConnectionStatus.PENDING) {
@@ -64,16 +83,21 @@ public class ConnectionService {
         }
 
         connection.setStatus(Connection.ConnectionStatus.ACCEPTED);
-        return connectionRepository.save(connection);
+        Connection saved = connectionRepository.save(connection);
+        connectionGraph.connected(connection.getRequester().getId(), receiverId);
+        exclusionIndex.connectionAccepted(connection.getRequester().getId(), receiverId);
+        eventPublisher.publishEvent(new ConnectionChangedEvent(connection.getRequester().getId(), receiverId));
+        return saved;
     }
 
-    public void rejectConnectionRequest(Long connectionId, User receiver) {
+    public void rejectConnectionRequest(Long connectionId, Long receiverId) {
         Connection connection = connectionRepository.findById(connectionId)
                 .orElseThrow(() -> new IllegalArgumentException("Connection not found"));
 
-        if (!connection.getReceiver().equals(receiver)) {
+        if (!connection.getReceiver().getId().equals(receiverId)) {
             throw new SecurityException("Not authorized to reject this request");
         }
+        User receiver = connection.getReceiver();
 
         // Save dismissal so they don't appear in recommendations immediately (only if
         // not already dismissed)
@@ -83,30 +107,43 @@ public class ConnectionService {
             dismissal.setDismissedUser(connection.getRequester());
             dismissal.setDismissedAt(LocalDateTime.now());
             dismissalRepository.save(dismissal);
+            exclusionIndex.dismissed(receiver.getId(), connection.getRequester().getId(), dismissal.getDismissedAt());
         }
 
         // Requirement says "disconnect" separate
         // Assuming reject is for requests, disconnect is for active
         connectionRepository.delete(connection); // Or set to DECLINED if we want history
+        if (connection.getStatus() == Connection.ConnectionStatus.ACCEPTED) {
+            connectionGraph.disconnected(connection.getRequester().getId(), receiver.getId());
+        }
+        exclusionIndex.connectionRemoved(connection.getRequester().getId(), receiver.getId());
+        eventPublisher.publishEvent(new ConnectionChangedEvent(connection.getRequester().getId(), receiver.getId()));
     }
 
-    public void disconnect(Long connectionId, User requestor) {
+    public void disconnect(Long connectionId, Long requestorId) {
         Connection connection = connectionRepository.findById(connectionId)
                 .orElseThrow(() -> new IllegalArgumentException("Connection not found"));
 
         // Check if user is part of connection
-        if (!connection.getRequester().equals(requestor) && !connection.getReceiver().equals(requestor)) {
+        if (!connection.getRequester().getId().equals(requestorId)
+                && !connection.getReceiver().getId().equals(requestorId)) {
             throw new SecurityException("Not authorized to disconnect");
         }
 
         connectionRepository.delete(connection);
+        if (connection.getStatus() == Connection.ConnectionStatus.ACCEPTED) {
+            connectionGraph.disconnected(connection.getRequester().getId(), connection.getReceiver().getId());
+        }
+        exclusionIndex.connectionRemoved(connection.getRequester().getId(), connection.getReceiver().getId());
+        eventPublisher.publishEvent(new ConnectionChangedEvent(connection.getRequester().getId(),
+                connection.getReceiver().getId()));
     }
 
-    public List<Connection> getPendingRequests(User user) {
-        return connectionRepository.findByReceiverAndStatus(user, Connection.ConnectionStatus.PENDING);
+    public List<Connection> getPendingRequests(Long userId) {
+        return connectionRepository.findByReceiverIdAndStatus(userId, Connection.ConnectionStatus.PENDING);
     }
 
-    public List<Connection> getMyConnections(User user) {
-        return connectionRepository.findAllAcceptedConnections(user);
+    public List<Connection> getMyConnections(Long userId) {
+        return connectionRepository.findAcceptedWithUsers(userId);
     }
 }
@@ -0,0 +1,38 @@
+package web.match_me.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import web.match_me.repository.ConversationSequenceRepository;
+
+// Per-conversation message seq: 1, 2, 3, ... with no gaps, used for ordering and "everything
+// after seq N" sync. Numbers come from the conversation's conversation_sequences row inside the
+// transaction that inserts the messages. The upsert keeps that row locked until commit, so a
+// second sender in the same conversation waits - seq order is commit order, and a rollback
+// takes its numbers back with it. Different conversations never contend.
+@Component
+public class ConversationSeqAllocator {
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    public long next(Long userId, Long otherUserId) {
+        return claim(Math.min(userId, otherUserId), Math.max(userId, otherUserId), 1);
+    }
+
+    // Reserves count consecutive seqs and returns the highest: the range is (result - count, result].
+    // Must run in the transaction that inserts the messages.
+    public long claim(long low, long high, int count) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Allocate the seq in the message insert transaction");
+        }
+        return namedParameterJdbcTemplate.queryForObject(ConversationSequenceRepository.CLAIM_SQL,
+                new MapSqlParameterSource()
+                        .addValue("low", low)
+                        .addValue("high", high)
+                        .addValue("count", count),
+                Long.class);
+    }
+}
@@ -7,9 +7,14 @@ import web.match_me.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Random;
+import java.util.Set;
 
 @Service
 public class DataSeedingService {
@@ -23,6 +28,12 @@ public class DataSeedingService {
         @Autowired
         private PasswordEncoder encoder;
 
+        @Autowired
+        private CandidateIndex candidateIndex;
+
+        @Autowired
+        private TransactionTemplate transactionTemplate;
+
         private static final String[] FIRST_NAMES = { "James", "Mary", "John", "Patricia", "Robert", "Jennifer",
                         "Michael",
                         "Linda", "William", "Elizabeth" };
@@ -40,24 +51,53 @@ public class DataSeedingService {
                         "Forest",
                         "Desert", "Island", "Lake", "Snow" };
 
+        // Users are written in chunks of this size, one transaction each, so Hibernate can send
+        // the inserts as JDBC batches (hibernate.jdbc.batch_size)
+        private static final int CHUNK_SIZE = 500;
+
         public void seedUsers(int count) {
                 Random random = new Random();
+                // Every seeded user shares the default password - hash it once, BCrypt is the slow part
+                String password = encoder.encode("password");
+
+                for (int start = 0; start < count; start += CHUNK_SIZE) {
+                        int from = start;
+                        int to = Math.min(count, start + CHUNK_SIZE);
+                        List<Profile> profiles = transactionTemplate
+                                        .execute(status -> seedChunk(from, to, password, random));
+                        // Index after commit so the matching engine never sees rolled-back profiles
+                        profiles.forEach(candidateIndex::index);
+                }
+                System.out.println("Seeding complete: " + count + " users created.");
+        }
+
+        private List<Profile> seedChunk(int from, int to, String password, Random random) {
+                List<String> usernames = new ArrayList<>();
+                List<String> emails = new ArrayList<>();
+                for (int i = from; i < to; i++) {
+                        usernames.add("user" + (i + 1));
+                        emails.add("user" + (i + 1) + "@example.com");
+                }
+                Set<String> takenUsernames = new HashSet<>(userRepository.findExistingUsernames(usernames));
+                Set<String> takenEmails = new HashSet<>(userRepository.findExistingEmails(emails));
 
-                for (int i = 0; i < count; i++) {
-                        String username = "user" + (i + 1);
-                        String email = "user" + (i + 1) + "@example.com";
+                List<User> users = new ArrayList<>();
+                List<Profile> profiles = new ArrayList<>();
+                for (int i = 0; i < usernames.size(); i++) {
+                        String username = usernames.get(i);
+                        String email = emails.get(i);
 
-                        if (userRepository.existsByUsername(username))
+                        if (takenUsernames.contains(username))
                                 continue;
-                        if (userRepository.existsByEmail(email))
+                        if (takenEmails.contains(email))
                                 continue;
 
                         User user = new User();
                         user.setUsername(username);
                         user.setEmail(email);
-                        user.setPassword(encoder.encode("password")); // Default password
+                        user.setPassword(password); // Default password
                         user.setEnabled(true);
-                        userRepository.save(user);
+                        users.add(user);
 
                         Profile profile = new Profile();
                         profile.setUser(user);
@@ -88,9 +128,9 @@ public class DataSeedingService {
                         profile.setProfilePictureUrl(
                                         "https://ui-avatars.com/api/?name=" + profile.getFirstName() + "+"
                                                         + profile.getLastName());
-
-                        profileRepository.save(profile);
+                        profiles.add(profile);
                 }
-                System.out.println("Seeding complete: " + count + " users created.");
+                userRepository.saveAll(users);
+                return profileRepository.saveAll(profiles);
         }
 }
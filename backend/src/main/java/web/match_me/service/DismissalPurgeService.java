@@ -0,0 +1,54 @@
+package web.match_me.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import web.match_me.repository.RecommendationDismissalRepository;
+
+import java.time.LocalDateTime;
+
+// Deletes dismissals older than the retention window. Rows go in small batches, each in its
+// own transaction, so the table is never locked for the whole purge.
+@Service
+@Slf4j
+public class DismissalPurgeService {
+
+    @Autowired
+    private RecommendationDismissalRepository dismissalRepository;
+
+    @Value("${matching.dismissal.retention-days:7}")
+    private long retentionDays;
+
+    @Value("${matching.dismissal.purge-batch-size:1000}")
+    private int batchSize;
+
+    // Breather between batches for concurrent writers
+    @Value("${matching.dismissal.purge-pause-ms:50}")
+    private long pauseMs;
+
+    @Scheduled(fixedDelayString = "${matching.dismissal.purge-interval-ms:3600000}",
+            initialDelayString = "${matching.dismissal.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        long total = 0;
+        try {
+            int deleted;
+            do {
+                deleted = dismissalRepository.deleteExpiredBatch(cutoff, batchSize);
+                total += deleted;
+                if (deleted == batchSize && pauseMs > 0) {
+                    Thread.sleep(pauseMs);
+                }
+            } while (deleted == batchSize);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Dismissal purge failed after {} rows", total, e);
+        }
+        if (total > 0) {
+            log.info("Purged {} dismissals older than {}", total, cutoff);
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package web.match_me.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import web.match_me.repository.ConnectionRepository;
+import web.match_me.repository.RecommendationDismissalRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+import java.util.function.LongPredicate;
+
+// Per-user set of ids that must not be recommended: accepted connections, senders of
+// pending requests to the user, and users dismissed within the retention window.
+// Loaded lazily from ConnectionGraph and id-only queries, then kept current by ConnectionService and
+// RecommendationService.dismissUser. The bitmaps ranking threads read are never mutated - a change
+// swaps in a copy that shares all but the touched chunk. Changes for a user are serialized by
+// byUser.compute, which never does I/O: the DB load runs outside it, once per user, and changes
+// arriving meanwhile are replayed on the loaded state. Users idle for idle-minutes, or the least
+// recently used past max-users, are dropped and reloaded on their next read.
+@Component
+public class ExclusionIndex {
+
+    private final Map<Long, Exclusions> byUser = new ConcurrentHashMap<>();
+    // Users whose DB load is running -> changes that arrived meanwhile
+    private final Map<Long, Loading> loading = new ConcurrentHashMap<>();
+
+    @Autowired
+    private ConnectionRepository connectionRepository;
+
+    @Autowired
+    private ConnectionGraph connectionGraph;
+
+    @Autowired
+    private RecommendationDismissalRepository dismissalRepository;
+
+    // Dismissed users come back after this many days; DismissalPurgeService deletes older rows
+    @Value("${matching.dismissal.retention-days:7}")
+    private long retentionDays;
+
+    @Value("${matching.exclusions.max-users:20000}")
+    private int maxUsers;
+
+    @Value("${matching.exclusions.idle-minutes:30}")
+    private long idleMinutes;
+
+    public LongPredicate excludedFor(Long userId) {
+        long cutoff = System.currentTimeMillis() - Duration.ofDays(retentionDays).toMillis();
+        Exclusions exclusions = byUser.computeIfPresent(userId, (id, current) -> {
+            current.expire(cutoff);
+            return current;
+        });
+        if (exclusions == null)
+            exclusions = loadOnce(userId, cutoff);
+        exclusions.lastUsedAt = System.currentTimeMillis();
+        if (byUser.size() > maxUsers)
+            evictLeastRecentlyUsed();
+
+        // One consistent view for the whole ranking pass
+        UserIdBitmap blocked = exclusions.blocked;
+        UserIdBitmap dismissed = exclusions.dismissed;
+        long self = userId;
+        return id -> id == self || blocked.contains(id) || dismissed.contains(id);
+    }
+
+    // requester -> receiver is pending: hide the requester from the receiver's deck
+    public void connectionRequested(Long requesterId, Long receiverId) {
+        update(receiverId, e -> e.block(requesterId));
+    }
+
+    public void connectionAccepted(Long requesterId, Long receiverId) {
+        update(requesterId, e -> e.block(receiverId));
+        update(receiverId, e -> e.block(requesterId));
+    }
+
+    // Rejected request or disconnect
+    public void connectionRemoved(Long userId, Long otherUserId) {
+        update(userId, e -> e.unblock(otherUserId));
+        update(otherUserId, e -> e.unblock(userId));
+    }
+
+    public void dismissed(Long userId, Long dismissedUserId, LocalDateTime dismissedAt) {
+        long at = toMillis(dismissedAt);
+        update(userId, e -> e.dismiss(dismissedUserId, at));
+    }
+
+    @Scheduled(fixedDelayString = "${matching.exclusions.sweep-interval-ms:60000}")
+    public void evictIdle() {
+        long idleBefore = System.currentTimeMillis() - Duration.ofMinutes(idleMinutes).toMillis();
+        byUser.entrySet().removeIf(e -> e.getValue().lastUsedAt < idleBefore);
+    }
+
+    public Map<String, Object> getMemoryUsage(Long userId) {
+        Map<String, Object> usage = new LinkedHashMap<>();
+        usage.put("userId", userId);
+        Exclusions exclusions = byUser.get(userId);
+        usage.put("loaded", exclusions != null);
+        if (exclusions != null) {
+            usage.put("blocked", exclusions.blocked.cardinality());
+            usage.put("dismissed", exclusions.dismissed.cardinality());
+            usage.put("bytes", exclusions.sizeInBytes());
+        }
+        return usage;
+    }
+
+    public Map<String, Object> getStats() {
+        long bytes = 0;
+        for (Exclusions exclusions : byUser.values()) {
+            bytes += exclusions.sizeInBytes();
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("users", byUser.size());
+        stats.put("maxUsers", maxUsers);
+        stats.put("loading", loading.size());
+        stats.put("bytes", bytes);
+        stats.put("avgBytesPerUser", byUser.isEmpty() ? 0 : bytes / byUser.size());
+        return stats;
+    }
+
+    // Users that are not loaded are skipped - their first read comes from the DB anyway - unless
+    // a load is running, which then replays the change
+    private void update(Long userId, Consumer<Exclusions> change) {
+        byUser.compute(userId, (id, current) -> {
+            if (current != null) {
+                change.accept(current);
+                return current;
+            }
+            Loading pending = loading.get(id);
+            if (pending != null)
+                pending.changes.add(change);
+            return null;
+        });
+    }
+
+    // One DB load per user at a time; concurrent readers wait for it instead of querying too
+    private Exclusions loadOnce(Long userId, long cutoff) {
+        Loading mine = new Loading();
+        Loading running = loading.putIfAbsent(userId, mine);
+        if (running != null) {
+            running.done.join();
+            Exclusions loaded = byUser.get(userId);
+            return loaded != null ? loaded : loadOnce(userId, cutoff);
+        }
+        try {
+            Exclusions loaded = load(userId, cutoff);
+            Exclusions installed = byUser.compute(userId, (id, current) -> {
+                // Under the key's lock, so every change lands either in the queue or on the entry
+                loading.remove(id, mine);
+                if (current != null)
+                    return current;
+                mine.changes.forEach(change -> change.accept(loaded));
+                loaded.expire(cutoff);
+                return loaded;
+            });
+            mine.done.complete(null);
+            return installed;
+        } catch (RuntimeException e) {
+            loading.remove(userId, mine);
+            mine.done.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private Exclusions load(Long userId, long cutoff) {
+        UserIdBitmap blocked = new UserIdBitmap();
+        for (long id : connectionGraph.partnersOf(userId)) {
+            blocked.add(id);
+        }
+        for (Long id : connectionRepository.findPendingRequesterIds(userId)) {
+            blocked.add(id);
+        }
+
+        List<Object[]> rows = dismissalRepository.findDismissedIdsSince(userId,
+                LocalDateTime.now().minusDays(retentionDays));
+        // One row per (user, dismissed user) thanks to the unique constraint, already time-ordered
+        UserIdBitmap dismissed = new UserIdBitmap();
+        DismissalLog log = new DismissalLog();
+        for (Object[] row : rows) {
+            long id = (Long) row[0];
+            log.append(id, toMillis((LocalDateTime) row[1]));
+            dismissed.add(id);
+        }
+        Exclusions exclusions = new Exclusions(blocked, dismissed, log);
+        exclusions.expire(cutoff);
+        return exclusions;
+    }
+
+    // Trim to 90% so the sort is paid once per many inserts, not on every one
+    private synchronized void evictLeastRecentlyUsed() {
+        if (byUser.size() <= maxUsers)
+            return;
+        List<Map.Entry<Long, Exclusions>> entries = new ArrayList<>(byUser.entrySet());
+        entries.sort(Comparator.comparingLong(e -> e.getValue().lastUsedAt));
+        int target = maxUsers * 9 / 10;
+        for (int i = 0; i < entries.size() - target; i++) {
+            byUser.remove(entries.get(i).getKey(), entries.get(i).getValue());
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static final class Loading {
+        final Queue<Consumer<Exclusions>> changes = new ConcurrentLinkedQueue<>();
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+    }
+
+    // Changed only under byUser.compute for its user. The bitmaps are replaced, never mutated,
+    // so a predicate handed out earlier keeps its view.
+    static final class Exclusions {
+        private volatile UserIdBitmap blocked;
+        private volatile UserIdBitmap dismissed;
+        private final DismissalLog log;
+        private volatile long lastUsedAt = System.currentTimeMillis();
+
+        Exclusions(UserIdBitmap blocked, UserIdBitmap dismissed, DismissalLog log) {
+            this.blocked = blocked;
+            this.dismissed = dismissed;
+            this.log = log;
+        }
+
+        void block(long id) {
+            blocked = blocked.with(id);
+        }
+
+        void unblock(long id) {
+            blocked = blocked.without(id);
+        }
+
+        void dismiss(long id, long at) {
+            log.append(id, at);
+            dismissed = dismissed.with(id);
+        }
+
+        void expire(long cutoff) {
+            long[] expired = log.expire(cutoff);
+            if (expired.length == 0)
+                return;
+            UserIdBitmap next = dismissed;
+            for (long id : expired) {
+                next = next.without(id);
+            }
+            dismissed = next;
+        }
+
+        long sizeInBytes() {
+            return 16 + blocked.sizeInBytes() + dismissed.sizeInBytes() + log.sizeInBytes();
+        }
+    }
+
+    // Dismissals in time order, oldest first - drives expiry. Append-only ring: a repeated
+    // dismissal adds a new entry and the old one is skipped when it reaches the head.
+    static final class DismissalLog {
+        private long[] ids = new long[4];
+        private long[] times = new long[4];
+        private int head;
+        private int size;
+        // Latest dismissal time per id
+        private final Map<Long, Long> latest = new HashMap<>();
+
+        void append(long id, long at) {
+            if (size == ids.length)
+                grow();
+            int tail = (head + size) % ids.length;
+            ids[tail] = id;
+            times[tail] = at;
+            size++;
+            latest.put(id, at);
+        }
+
+        // Ids whose latest dismissal is at or before cutoff, dropped from the log
+        long[] expire(long cutoff) {
+            long[] expired = new long[0];
+            int count = 0;
+            while (size > 0 && times[head] <= cutoff) {
+                long id = ids[head];
+                head = (head + 1) % ids.length;
+                size--;
+                Long last = latest.get(id);
+                if (last != null && last <= cutoff) {
+                    latest.remove(id);
+                    if (count == expired.length)
+                        expired = Arrays.copyOf(expired, Math.max(4, count * 2));
+                    expired[count++] = id;
+                }
+            }
+            return Arrays.copyOf(expired, count);
+        }
+
+        long sizeInBytes() {
+            return 16 + 16 + 8L * ids.length + 16 + 8L * times.length + 48 + 64L * latest.size();
+        }
+
+        private void grow() {
+            long[] newIds = new long[ids.length * 2];
+            long[] newTimes = new long[times.length * 2];
+            for (int i = 0; i < size; i++) {
+                newIds[i] = ids[(head + i) % ids.length];
+                newTimes[i] = times[(head + i) % times.length];
+            }
+            ids = newIds;
+            times = newTimes;
+            head = 0;
+        }
+    }
+}
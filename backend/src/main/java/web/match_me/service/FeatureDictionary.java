@@ -0,0 +1,77 @@
+package web.match_me.service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Dictionary encoding for profile features.
+// Interests/hobbies become bit positions (exact, case-sensitive - same as the old HashSet overlap),
+// music/food/travel become int codes folded the same way String.equalsIgnoreCase compares.
+// Codes are append-only, so features compiled earlier stay valid as the vocabulary grows.
+public class FeatureDictionary {
+
+    public static final int NO_VALUE = -1;
+    // Lists may contain null elements; they still have to overlap with each other
+    private static final String NULL_TERM = "\u0000null";
+
+    private final Terms interests = new Terms();
+    private final Terms hobbies = new Terms();
+    private final Terms scalars = new Terms();
+
+    public long[] encodeInterests(List<String> values) {
+        return interests.bits(values);
+    }
+
+    public long[] encodeHobbies(List<String> values) {
+        return hobbies.bits(values);
+    }
+
+    public int encodeScalar(String value) {
+        return value == null ? NO_VALUE : scalars.code(fold(value));
+    }
+
+    public int size() {
+        return interests.size() + hobbies.size() + scalars.size();
+    }
+
+    // Per code point upper->lower folding: two strings fold equal exactly when equalsIgnoreCase holds
+    static String fold(String value) {
+        StringBuilder folded = new StringBuilder(value.length());
+        value.codePoints()
+                .map(cp -> Character.toLowerCase(Character.toUpperCase(cp)))
+                .forEach(folded::appendCodePoint);
+        return folded.toString();
+    }
+
+    private static final class Terms {
+        private static final long[] EMPTY = new long[0];
+
+        private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+        private final AtomicInteger next = new AtomicInteger();
+
+        int code(String term) {
+            return codes.computeIfAbsent(term, t -> next.getAndIncrement());
+        }
+
+        int size() {
+            return next.get();
+        }
+
+        long[] bits(List<String> values) {
+            if (values == null || values.isEmpty())
+                return EMPTY;
+            long[] bits = EMPTY;
+            for (String value : values) {
+                int code = code(value == null ? NULL_TERM : value);
+                int word = code >>> 6;
+                if (word >= bits.length) {
+                    bits = Arrays.copyOf(bits, word + 1);
+                }
+                bits[word] |= 1L << code;
+            }
+            return bits;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package web.match_me.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+// Fixed-size lat/lon cell grid over ProfileFeatures that have coordinates.
+// A radius query only visits the cells overlapping the query's bounding box,
+// then filters by box and finally by exact great-circle distance.
+public class GeoGrid {
+
+    // Degrees of arc -> nautical miles -> miles -> km, as in ScoringKernel.distanceKm
+    public static final double KM_PER_DEGREE = 60 * 1.1515 * 1.609344;
+
+    private final double cellDegrees;
+    private final int lonCellCount;
+    // cell key -> (userId -> features)
+    private final Map<Long, Map<Long, ProfileFeatures>> cells = new ConcurrentHashMap<>();
+
+    public GeoGrid(double cellDegrees) {
+        if (cellDegrees <= 0 || cellDegrees > 90) {
+            throw new IllegalArgumentException("Cell size must be in (0, 90] degrees");
+        }
+        this.cellDegrees = cellDegrees;
+        this.lonCellCount = (int) Math.ceil(360 / cellDegrees);
+    }
+
+    public void add(ProfileFeatures features) {
+        if (!features.hasCoordinates())
+            return;
+        cells.computeIfAbsent(cellKey(features.getLatitude(), features.getLongitude()),
+                k -> new ConcurrentHashMap<>())
+                .put(features.getUserId(), features);
+    }
+
+    public void remove(ProfileFeatures features) {
+        if (!features.hasCoordinates())
+            return;
+        Map<Long, ProfileFeatures> cell = cells.get(cellKey(features.getLatitude(), features.getLongitude()));
+        if (cell != null) {
+            cell.remove(features.getUserId());
+        }
+    }
+
+    public void clear() {
+        cells.clear();
+    }
+
+    // Visits every indexed profile within query's radius of its center (center itself included)
+    public void forEachWithin(Query query, Consumer<ProfileFeatures> visitor) {
+        int latStart = latCell(query.centerLat - query.deltaLat);
+        int latEnd = latCell(query.centerLat + query.deltaLat);
+        int lonStart = rawLonCell(query.centerLon - query.deltaLon);
+        int lonEnd = rawLonCell(query.centerLon + query.deltaLon);
+        // A box wider than the globe would otherwise visit the same column twice
+        if (lonEnd - lonStart >= lonCellCount) {
+            lonStart = 0;
+            lonEnd = lonCellCount - 1;
+        }
+
+        for (int lat = latStart; lat <= latEnd; lat++) {
+            for (int lon = lonStart; lon <= lonEnd; lon++) {
+                Map<Long, ProfileFeatures> cell = cells.get(key(lat, Math.floorMod(lon, lonCellCount)));
+                if (cell == null)
+                    continue;
+                for (ProfileFeatures candidate : cell.values()) {
+                    if (query.contains(candidate)) {
+                        visitor.accept(candidate);
+                    }
+                }
+            }
+        }
+    }
+
+    private long cellKey(double lat, double lon) {
+        return key(latCell(lat), Math.floorMod(rawLonCell(lon), lonCellCount));
+    }
+
+    private int latCell(double lat) {
+        return (int) Math.floor((Math.max(-90, Math.min(90, lat)) + 90) / cellDegrees);
+    }
+
+    private int rawLonCell(double lon) {
+        return (int) Math.floor((lon + 180) / cellDegrees);
+    }
+
+    private static long key(int latCell, int lonCell) {
+        return ((long) latCell << 32) | (lonCell & 0xffffffffL);
+    }
+
+    // Precomputed radius query around one profile; cheap box test first, exact distance second
+    public static final class Query {
+        private final ProfileFeatures center;
+        private final double centerLat;
+        private final double centerLon;
+        private final double deltaLat;
+        private final double deltaLon;
+        private final double minCosine;
+
+        public Query(ProfileFeatures center, double radiusKm) {
+            if (!center.hasCoordinates()) {
+                throw new IllegalArgumentException("Radius query needs a profile with coordinates");
+            }
+            this.center = center;
+            this.centerLat = center.getLatitude();
+            this.centerLon = center.getLongitude();
+            this.deltaLat = radiusKm / KM_PER_DEGREE;
+            // Widest longitude offset on the circle is asin(sin r / cos lat), reached north or
+            // south of the center - deltaLat / cos lat falls short of it at high latitudes.
+            // When the circle reaches over a pole every longitude is within reach.
+            double sinRadius = Math.sin(Math.toRadians(Math.min(90, deltaLat)));
+            double cosLat = center.getCosLatitude();
+            this.deltaLon = deltaLat >= 90 || sinRadius >= cosLat ? 180
+                    : Math.toDegrees(Math.asin(sinRadius / cosLat));
+            // Comparing cosines avoids acos and keeps identical points (cos slightly > 1) inside
+            this.minCosine = Math.cos(Math.toRadians(deltaLat));
+        }
+
+        public boolean contains(ProfileFeatures candidate) {
+            if (!candidate.hasCoordinates())
+                return false;
+            if (Math.abs(candidate.getLatitude() - centerLat) > deltaLat)
+                return false;
+            double dLon = Math.abs(candidate.getLongitude() - centerLon);
+            if (dLon > 180)
+                dLon = 360 - dLon;
+            if (dLon > deltaLon)
+                return false;
+            double cosine = center.getSinLatitude() * candidate.getSinLatitude()
+                    + center.getCosLatitude() * candidate.getCosLatitude()
+                            * Math.cos(Math.toRadians(candidate.getLongitude() - centerLon));
+            return cosine >= minCosine;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package web.match_me.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import web.match_me.repository.ChatMessageRepository;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Catch-up after a WebSocket reconnect. The client presents, per conversation, the highest seq
+// below which it has seen everything (partner id -> seq, seeded from the connection list and
+// history it loaded) and gets back the conversation's messages after those, sent and received,
+// in one query over uk_chat_messages_pair_seq.
+// This relies on seq having no gaps and being commit-ordered (see ConversationSeqAllocator):
+// when 6 is visible so is 5, and a client holding 6 but not 5 keeps its cursor at 4.
+// Replays are capped at max-messages; past that the client is told to reload instead.
+@Service
+public class MessageReplayService {
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Value("${chat.replay.max-messages:500}")
+    private int maxMessages;
+
+    @Value("${chat.replay.max-conversations:1000}")
+    private int maxConversations;
+
+    private final AtomicLong replays = new AtomicLong();
+    private final AtomicLong replayedMessages = new AtomicLong();
+    private final AtomicLong incomplete = new AtomicLong();
+
+    // Same shape as the REST message payloads
+    public static Map<String, Object> payload(Long id, Long seq, Long senderId, Long receiverId, String content,
+            LocalDateTime ts) {
+        // Convert LocalDateTime to array format [year, month, day, hour, minute,
+        // second, nano]
+        // This matches what Jackson serializes for REST endpoints
+        int[] timestampArray = new int[] {
+                ts.getYear(), ts.getMonthValue(), ts.getDayOfMonth(),
+                ts.getHour(), ts.getMinute(), ts.getSecond(), ts.getNano()
+        };
+
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("id", id);
+        payload.put("seq", seq);
+        payload.put("senderId", senderId);
+        payload.put("receiverId", receiverId);
+        payload.put("content", content);
+        payload.put("timestamp", timestampArray);
+        return payload;
+    }
+
+    // cursor: partner id -> last seq seen in that conversation. Conversations left out of the
+    // cursor are not replayed.
+    public Replay replay(Long userId, Map<Long, Long> cursor) {
+        replays.incrementAndGet();
+        if (cursor.isEmpty())
+            return new Replay(List.of(), true);
+        if (cursor.size() > maxConversations) {
+            incomplete.incrementAndGet();
+            return new Replay(List.of(), false);
+        }
+
+        StringJoiner partnerIds = new StringJoiner(",", "{", "}");
+        StringJoiner afterSeqs = new StringJoiner(",", "{", "}");
+        cursor.forEach((partnerId, seq) -> {
+            partnerIds.add(Long.toString(partnerId));
+            afterSeqs.add(Long.toString(seq));
+        });
+        List<Map<String, Object>> rows = namedParameterJdbcTemplate.query(ChatMessageRepository.REPLAY_SQL,
+                new MapSqlParameterSource()
+                        .addValue("userId", userId)
+                        .addValue("partnerIds", partnerIds.toString())
+                        .addValue("afterSeqs", afterSeqs.toString())
+                        .addValue("limit", maxMessages + 1),
+                (rs, i) -> payload(rs.getLong("id"), rs.getLong("seq"), rs.getLong("sender_id"),
+                        rs.getLong("receiver_id"), rs.getString("content"),
+                        rs.getTimestamp("timestamp").toLocalDateTime()));
+
+        boolean complete = rows.size() <= maxMessages;
+        if (!complete) {
+            incomplete.incrementAndGet();
+            rows = rows.subList(0, maxMessages);
+        }
+        replayedMessages.addAndGet(rows.size());
+        return new Replay(rows, complete);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("replays", replays.get());
+        stats.put("replayedMessages", replayedMessages.get());
+        stats.put("incomplete", incomplete.get());
+        stats.put("maxMessages", maxMessages);
+        stats.put("maxConversations", maxConversations);
+        return stats;
+    }
+
+    public static class Replay {
+        private final List<Map<String, Object>> messages;
+        private final boolean complete;
+
+        Replay(List<Map<String, Object>> messages, boolean complete) {
+            this.messages = messages;
+            this.complete = complete;
+        }
+
+        // Per conversation, oldest first
+        public List<Map<String, Object>> getMessages() {
+            return messages;
+        }
+
+        // False when more was missed than a replay carries - reload instead
+        public boolean isComplete() {
+            return complete;
+        }
+    }
+}
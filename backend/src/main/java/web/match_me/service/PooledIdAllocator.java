@@ -0,0 +1,32 @@
+package web.match_me.service;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+// Hands out ids from a DB sequence in blocks, with Hibernate's pooled-lo semantics: each
+// nextval is the low end of [value, value + blockSize). The sequence must be declared with
+// INCREMENT BY blockSize so Hibernate and this allocator never overlap.
+public class PooledIdAllocator {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String nextValSql;
+    private final int blockSize;
+
+    private long next;
+    private long limit;
+
+    public PooledIdAllocator(JdbcTemplate jdbcTemplate, String sequenceName, int blockSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.nextValSql = "SELECT nextval('" + sequenceName + "')";
+        this.blockSize = blockSize;
+    }
+
+    // One round trip per blockSize ids
+    public synchronized long next() {
+        if (next == limit) {
+            Long low = jdbcTemplate.queryForObject(nextValSql, Long.class);
+            next = low;
+            limit = low + blockSize;
+        }
+        return next++;
+    }
+}
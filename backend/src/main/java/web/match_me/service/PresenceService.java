@@ -1,82 +1,253 @@
 package web.match_me.service;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import web.match_me.entity.Connection;
-import web.match_me.entity.User;
-import web.match_me.repository.UserRepository;
-
+import web.match_me.entity.UserPresence;
+import web.match_me.repository.UserPresenceRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
+// Online = at least one open WebSocket session, or the last one closed less than
+// offline-grace-ms ago (page reloads, network blips). Sessions are counted per user, so closing
+// one of several tabs changes nothing. Grace timers live on a timing wheel; friends to notify
+// come from the in-memory ConnectionGraph - connect/disconnect never touch the database.
+// Changes are not pushed one frame per friend: they are collected per recipient and sent every
+// flush-interval-ms as one {online: [...], offline: [...]} frame, so a reconnect storm costs one
+// frame per online recipient per interval. Clients load the starting state from getOnlineAmong.
+// Last-seen times are kept in memory as they happen and written to user_presence by a periodic
+// batched upsert: at most one row per user per last-seen flush, however much they churn.
 @Service
+@Slf4j
 public class PresenceService {
 
-    private final Map<Long, Boolean> onlineUsers = new ConcurrentHashMap<>();
-    private final Map<Long, ScheduledFuture<?>> disconnectTasks = new ConcurrentHashMap<>();
-    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final Map<Long, Presence> presence = new ConcurrentHashMap<>();
+    // Session id -> user id, so a repeated or unknown disconnect can't unbalance the count
+    private final Map<String, Long> sessions = new ConcurrentHashMap<>();
+    // Recipient -> (user -> latest state) not sent yet. Only mutated inside compute, taken
+    // whole with remove
+    private final Map<Long, Map<Long, Boolean>> pendingDiffs = new ConcurrentHashMap<>();
+    // User -> newest activity not written yet
+    private final Map<Long, LocalDateTime> unsavedLastSeen = new ConcurrentHashMap<>();
 
     @Autowired
     private SimpMessagingTemplate messagingTemplate;
 
     @Autowired
-    private ConnectionService connectionService;
+    private ConnectionGraph connectionGraph;
+
+    @Autowired
+    private UserPresenceRepository userPresenceRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Value("${presence.last-seen.batch-size:500}")
+    private int lastSeenBatchSize;
+
+    @Value("${presence.offline-grace-ms:2000}")
+    private long offlineGraceMs;
 
-    public void userConnected(String email) {
-        User user = userRepository.findByEmail(email).orElse(null);
-        if (user == null)
+    @Value("${presence.wheel.tick-ms:100}")
+    private long tickMs;
+
+    @Value("${presence.wheel.slots:512}")
+    private int slots;
+
+    private TimingWheel graceTimers;
+
+    @PostConstruct
+    public void init() {
+        graceTimers = new TimingWheel("presence-grace", tickMs, TimeUnit.MILLISECONDS, slots);
+    }
+
+    // Everyone still connected was last seen now
+    @PreDestroy
+    public void shutdown() {
+        graceTimers.stop();
+        presence.keySet().forEach(this::seen);
+        flushLastSeen();
+    }
+
+    public void userConnected(String sessionId, Long userId) {
+        if (sessions.putIfAbsent(sessionId, userId) != null)
+            return;
+        seen(userId);
+
+        boolean[] cameOnline = new boolean[1];
+        presence.compute(userId, (id, p) -> {
+            if (p == null) {
+                p = new Presence();
+                cameOnline[0] = true;
+            }
+            // Back within the grace period: still online, nobody is told anything
+            if (p.offlineTimer != null) {
+                p.offlineTimer.cancel();
+                p.offlineTimer = null;
+            }
+            p.sessions++;
+            return p;
+        });
+        if (cameOnline[0]) {
+            broadcastStatus(userId, true);
+        }
+    }
+
+    public void userDisconnected(String sessionId) {
+        Long userId = sessions.remove(sessionId);
+        if (userId == null)
             return;
+        seen(userId);
+
+        presence.computeIfPresent(userId, (id, p) -> {
+            p.sessions--;
+            if (p.sessions == 0) {
+                p.offlineTimer = graceTimers.schedule(timeout -> wentOffline(id, timeout),
+                        offlineGraceMs, TimeUnit.MILLISECONDS);
+            }
+            return p;
+        });
+    }
 
-        // Cancel any pending disconnect task
-        ScheduledFuture<?> task = disconnectTasks.remove(user.getId());
-        if (task != null) {
-            task.cancel(false);
+    public boolean isUserOnline(Long userId) {
+        return presence.containsKey(userId);
+    }
+
+    // Snapshot for a client's friend list
+    public List<Long> getOnlineAmong(long[] userIds) {
+        List<Long> online = new ArrayList<>();
+        for (long id : userIds) {
+            if (presence.containsKey(id)) {
+                online.add(id);
+            }
         }
+        return online;
+    }
 
-        if (!onlineUsers.containsKey(user.getId())) {
-            onlineUsers.put(user.getId(), true);
-            broadcastStatus(user, true);
+    // Last seen per user, for connection cards. Unflushed times win over stored ones.
+    public Map<Long, LocalDateTime> getLastSeen(Collection<Long> userIds) {
+        Map<Long, LocalDateTime> lastSeen = new HashMap<>();
+        if (userIds.isEmpty())
+            return lastSeen;
+        for (UserPresence row : userPresenceRepository.findByUserIdIn(userIds)) {
+            lastSeen.put(row.getUserId(), row.getLastSeenAt());
+        }
+        for (Long userId : userIds) {
+            LocalDateTime unsaved = unsavedLastSeen.get(userId);
+            if (unsaved != null) {
+                lastSeen.merge(userId, unsaved, PresenceService::latest);
+            }
         }
+        return lastSeen;
     }
 
-    public void userDisconnected(String email) {
-        User user = userRepository.findByEmail(email).orElse(null);
-        if (user == null)
-            return;
+    @Scheduled(fixedDelayString = "${presence.last-seen.flush-interval-ms:30000}")
+    public void flushLastSeen() {
+        List<SqlParameterSource> batch = new ArrayList<>();
+        for (Long userId : unsavedLastSeen.keySet()) {
+            LocalDateTime at = unsavedLastSeen.remove(userId);
+            if (at != null) {
+                batch.add(new MapSqlParameterSource()
+                        .addValue("userId", userId)
+                        .addValue("lastSeenAt", at));
+            }
+        }
+        for (int from = 0; from < batch.size(); from += lastSeenBatchSize) {
+            List<SqlParameterSource> chunk = batch.subList(from, Math.min(batch.size(), from + lastSeenBatchSize));
+            try {
+                namedParameterJdbcTemplate.batchUpdate(UserPresenceRepository.UPSERT_SQL,
+                        chunk.toArray(new SqlParameterSource[0]));
+            } catch (Exception e) {
+                log.warn("Failed to write {} last-seen rows, retrying next flush", chunk.size(), e);
+                // Put them back unless something newer arrived meanwhile
+                for (SqlParameterSource params : chunk) {
+                    unsavedLastSeen.merge((Long) params.getValue("userId"),
+                            (LocalDateTime) params.getValue("lastSeenAt"), PresenceService::latest);
+                }
+            }
+        }
+    }
 
-        // Schedule disconnect
-        ScheduledFuture<?> task = scheduler.schedule(() -> {
-            disconnectTasks.remove(user.getId());
-            onlineUsers.remove(user.getId());
-            broadcastStatus(user, false);
-        }, 2, TimeUnit.SECONDS); // 2 seconds delay
+    @Scheduled(fixedDelayString = "${presence.flush-interval-ms:500}")
+    public void flushDiffs() {
+        for (Long recipientId : pendingDiffs.keySet()) {
+            Map<Long, Boolean> diff = pendingDiffs.remove(recipientId);
+            // Offline recipients load a snapshot when they connect
+            if (diff == null || !presence.containsKey(recipientId))
+                continue;
+            List<Long> online = new ArrayList<>();
+            List<Long> offline = new ArrayList<>();
+            diff.forEach((userId, isOnline) -> (isOnline ? online : offline).add(userId));
+            messagingTemplate.convertAndSend("/queue/presence-user" + recipientId,
+                    Map.of("online", online, "offline", offline));
+        }
+    }
 
-        disconnectTasks.put(user.getId(), task);
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("onlineUsers", presence.size());
+        stats.put("sessions", sessions.size());
+        stats.put("pendingGraceTimers", graceTimers.getPendingCount());
+        stats.put("pendingDiffRecipients", pendingDiffs.size());
+        stats.put("unsavedLastSeen", unsavedLastSeen.size());
+        return stats;
     }
 
-    public boolean isUserOnline(Long userId) {
-        return onlineUsers.containsKey(userId);
+    // Runs on the wheel thread. Only the timer the user is still waiting on may take them offline
+    private void wentOffline(Long userId, TimingWheel.Timeout timeout) {
+        boolean[] removed = new boolean[1];
+        presence.computeIfPresent(userId, (id, p) -> {
+            if (p.sessions == 0 && p.offlineTimer == timeout) {
+                removed[0] = true;
+                return null;
+            }
+            return p;
+        });
+        if (removed[0]) {
+            broadcastStatus(userId, false);
+        }
     }
 
-    private void broadcastStatus(User user, boolean isOnline) {
-        List<Connection> connections = connectionService.getMyConnections(user);
+    private void seen(Long userId) {
+        unsavedLastSeen.merge(userId, LocalDateTime.now(), PresenceService::latest);
+    }
 
-        Map<String, Object> payload = Map.of(
-                "userId", user.getId(),
-                "isOnline", isOnline);
+    private static LocalDateTime latest(LocalDateTime a, LocalDateTime b) {
+        return a.isAfter(b) ? a : b;
+    }
 
-        for (Connection connection : connections) {
-            User friend = connection.getRequester().equals(user) ? connection.getReceiver() : connection.getRequester();
-            messagingTemplate.convertAndSend("/queue/presence-user" + friend.getId(), payload);
+    // Queued for the next flush; a later change for the same user replaces an earlier one
+    private void broadcastStatus(Long userId, boolean isOnline) {
+        for (long friendId : connectionGraph.partnersOf(userId)) {
+            pendingDiffs.compute(friendId, (id, diff) -> {
+                if (diff == null) {
+                    diff = new HashMap<>();
+                }
+                diff.put(userId, isOnline);
+                return diff;
+            });
         }
     }
+
+    // Guarded by the map's compute
+    private static final class Presence {
+        int sessions;
+        TimingWheel.Timeout offlineTimer;
+    }
 }
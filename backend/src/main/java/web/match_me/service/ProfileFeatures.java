@@ -0,0 +1,109 @@
+package web.match_me.service;
+
+import web.match_me.entity.Profile;
+
+import java.util.List;
+
+// Compact, immutable compiled form of the parts of a Profile the matching engine needs.
+// Kept resident in CandidateIndex so scoring never touches JPA entities or strings:
+// interests/hobbies are bitsets and scalar preferences are dictionary codes.
+public final class ProfileFeatures {
+
+    private final long userId;
+    private final String location;
+    private final long[] interestBits;
+    private final long[] hobbyBits;
+    private final int musicCode;
+    private final int foodCode;
+    private final int travelCode;
+    private final boolean hasCoordinates;
+    private final double latitude;
+    private final double longitude;
+    // Precomputed once per profile so distance checks skip toRadians/sin/cos per pair
+    private final double sinLatitude;
+    private final double cosLatitude;
+
+    public ProfileFeatures(long userId, String location, long[] interestBits, long[] hobbyBits,
+            int musicCode, int foodCode, int travelCode, Double latitude, Double longitude) {
+        this.userId = userId;
+        this.location = location;
+        this.interestBits = interestBits;
+        this.hobbyBits = hobbyBits;
+        this.musicCode = musicCode;
+        this.foodCode = foodCode;
+        this.travelCode = travelCode;
+        this.hasCoordinates = latitude != null && longitude != null;
+        this.latitude = hasCoordinates ? latitude : 0;
+        this.longitude = hasCoordinates ? longitude : 0;
+        this.sinLatitude = hasCoordinates ? Math.sin(Math.toRadians(latitude)) : 0;
+        this.cosLatitude = hasCoordinates ? Math.cos(Math.toRadians(latitude)) : 0;
+    }
+
+    public static ProfileFeatures compile(Profile profile, FeatureDictionary dictionary) {
+        return compile(profile, profile.getInterests(), profile.getHobbies(), dictionary);
+    }
+
+    // Interests/hobbies passed separately so bulk loads can supply them without
+    // touching the lazy collections on the entity
+    public static ProfileFeatures compile(Profile profile, List<String> interests, List<String> hobbies,
+            FeatureDictionary dictionary) {
+        return new ProfileFeatures(
+                profile.getUser().getId(),
+                profile.getLocation(),
+                dictionary.encodeInterests(interests),
+                dictionary.encodeHobbies(hobbies),
+                dictionary.encodeScalar(profile.getMusicTaste()),
+                dictionary.encodeScalar(profile.getFoodPreference()),
+                dictionary.encodeScalar(profile.getTravelPreference()),
+                profile.getLatitude(),
+                profile.getLongitude());
+    }
+
+    public long getUserId() {
+        return userId;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public long[] getInterestBits() {
+        return interestBits;
+    }
+
+    public long[] getHobbyBits() {
+        return hobbyBits;
+    }
+
+    public int getMusicCode() {
+        return musicCode;
+    }
+
+    public int getFoodCode() {
+        return foodCode;
+    }
+
+    public int getTravelCode() {
+        return travelCode;
+    }
+
+    public boolean hasCoordinates() {
+        return hasCoordinates;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    public double getSinLatitude() {
+        return sinLatitude;
+    }
+
+    public double getCosLatitude() {
+        return cosLatitude;
+    }
+}
@@ -1,12 +1,20 @@
 package web.match_me.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import web.match_me.entity.Profile;
 import web.match_me.entity.User;
+import web.match_me.event.ProfileChangedEvent;
 import web.match_me.repository.ProfileRepository;
 import web.match_me.repository.UserRepository;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 // RULES FOR PROFILE
 @Service
@@ -18,6 +26,12 @@ public class ProfileService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private CandidateIndex candidateIndex;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     public Profile saveProfile(Profile profile) {
         return profileRepository.save(profile);
     }
@@ -29,6 +43,33 @@ public class ProfileService {
     public Optional<Profile> getProfileByUserId(Long userId) {
         return profileRepository.findByUserId(userId);
     }
+
+    // Profiles for a list of cards in 3 queries total, interests/hobbies already loaded.
+    // Keyed by user id in the order of userIds; users without a profile are left out.
+    @Transactional(readOnly = true)
+    public Map<Long, Profile> getProfilesByUserIds(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return Map.of();
+        }
+        List<Profile> profiles = profileRepository.findAllByUserIdIn(userIds);
+        if (!profiles.isEmpty()) {
+            profileRepository.fetchInterests(profiles);
+            profileRepository.fetchHobbies(profiles);
+        }
+
+        Map<Long, Profile> byUserId = new HashMap<>();
+        for (Profile profile : profiles) {
+            byUserId.put(profile.getUser().getId(), profile);
+        }
+        Map<Long, Profile> ordered = new LinkedHashMap<>();
+        for (Long userId : userIds) {
+            Profile profile = byUserId.get(userId);
+            if (profile != null) {
+                ordered.put(userId, profile);
+            }
+        }
+        return ordered;
+    }
     
     public boolean isProfileComplete(User user) {
         return user.isProfileCompleted();
@@ -69,7 +110,10 @@ public class ProfileService {
         user.setProfileCompleted(isComplete);
         userRepository.save(user);
 
-        return profileRepository.save(profile);
+        Profile saved = profileRepository.save(profile);
+        candidateIndex.index(saved);
+        eventPublisher.publishEvent(new ProfileChangedEvent(user.getId()));
+        return saved;
     }
     
     public Profile updateProfilePartially(User user, Profile partialData) {
@@ -106,7 +150,10 @@ public class ProfileService {
         user.setProfileCompleted(isComplete);
         userRepository.save(user);
 
-        return profileRepository.save(profile);
+        Profile saved = profileRepository.save(profile);
+        candidateIndex.index(saved);
+        eventPublisher.publishEvent(new ProfileChangedEvent(user.getId()));
+        return saved;
     }
     public void updateProfilePhotoUrl(User user, String photoUrl) {
         Profile profile = profileRepository.findByUser(user).orElse(new Profile());
@@ -0,0 +1,264 @@
+package web.match_me.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import web.match_me.entity.User;
+import web.match_me.event.ConnectionChangedEvent;
+import web.match_me.event.DismissalRecordedEvent;
+import web.match_me.event.ProfileChangedEvent;
+import web.match_me.repository.UserRepository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Materialized recommendation decks - a bounded per-user cache in front of
+// RecommendationService.getRecommendations.
+// GET /recommendations serves the stored ranked list; a background worker rebuilds decks
+// that were invalidated by profile, connection or dismissal changes, or that got too old.
+// Decks not read within the TTL are dropped, and the store never holds more than max-entries.
+@Service
+@Slf4j
+public class RecommendationDeckService {
+
+    // Seconds since the served deck was computed
+    public static final String AGE_HEADER = "X-Recommendations-Age";
+
+    private final Map<Long, Deck> decks = new ConcurrentHashMap<>();
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+    // candidate userId -> owners whose deck currently lists that candidate
+    private final Map<Long, Set<Long>> listedIn = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @Autowired
+    private RecommendationService recommendationService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${matching.deck.max-age-seconds:300}")
+    private long maxAgeSeconds;
+
+    @Value("${matching.deck.ttl-seconds:900}")
+    private long ttlSeconds;
+
+    @Value("${matching.deck.max-entries:10000}")
+    private int maxEntries;
+
+    // A fresh deck is a map lookup; a missing or expired one is built synchronously
+    public Deck getDeck(User user) {
+        long now = System.currentTimeMillis();
+        Deck deck = decks.get(user.getId());
+        if (deck != null && !deck.isExpired(now, ttlSeconds)) {
+            hits.incrementAndGet();
+            deck.touch(now);
+            return deck;
+        }
+        misses.incrementAndGet();
+        deck = compute(user);
+        store(user.getId(), deck);
+        return deck;
+    }
+
+    // Rebuild in the background; the current deck keeps being served until then
+    public void invalidate(Long userId) {
+        if (decks.containsKey(userId) && dirty.add(userId)) {
+            invalidations.incrementAndGet();
+        }
+    }
+
+    // Drop the deck so the next read rebuilds it synchronously
+    public void evict(Long userId) {
+        remove(userId);
+        dirty.remove(userId);
+    }
+
+    // Take one id out of a deck right away, then refill it in the background
+    public void withdraw(Long userId, Long candidateId) {
+        Deck deck = decks.get(userId);
+        if (deck != null && deck.getUserIds().contains(candidateId)) {
+            decks.replace(userId, deck, deck.without(candidateId));
+            unlist(userId, List.of(candidateId));
+        }
+        invalidate(userId);
+    }
+
+    @EventListener
+    public void onProfileChanged(ProfileChangedEvent event) {
+        // Own location/preferences changed - an old deck is no longer meaningful
+        evict(event.getUserId());
+        // Their score in other decks changed too. Decks they are not in yet are
+        // picked up by the max-age refresh.
+        Set<Long> owners = listedIn.get(event.getUserId());
+        if (owners != null) {
+            owners.forEach(this::invalidate);
+        }
+    }
+
+    @EventListener
+    public void onConnectionChanged(ConnectionChangedEvent event) {
+        withdraw(event.getUserId(), event.getOtherUserId());
+        withdraw(event.getOtherUserId(), event.getUserId());
+    }
+
+    @EventListener
+    public void onDismissalRecorded(DismissalRecordedEvent event) {
+        withdraw(event.getUserId(), event.getDismissedUserId());
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", decks.size());
+        stats.put("maxEntries", maxEntries);
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("evictions", evictions.get());
+        stats.put("invalidations", invalidations.get());
+        stats.put("pendingRebuilds", dirty.size());
+        return stats;
+    }
+
+    @Scheduled(fixedDelayString = "${matching.deck.refresh-interval-ms:5000}")
+    public void refreshStaleDecks() {
+        long now = System.currentTimeMillis();
+        long oldestAllowed = now - maxAgeSeconds * 1000;
+        List<Long> toRebuild = new ArrayList<>(dirty);
+        for (Map.Entry<Long, Deck> entry : decks.entrySet()) {
+            Long userId = entry.getKey();
+            Deck deck = entry.getValue();
+            if (deck.isExpired(now, ttlSeconds)) {
+                // Nobody has read it for a while - drop it instead of keeping it warm
+                evict(userId);
+                evictions.incrementAndGet();
+            } else if (deck.getBuiltAt() < oldestAllowed && !dirty.contains(userId)) {
+                toRebuild.add(userId);
+            }
+        }
+
+        for (Long userId : toRebuild) {
+            dirty.remove(userId);
+            if (!decks.containsKey(userId))
+                continue;
+            try {
+                userRepository.findById(userId).ifPresentOrElse(user -> {
+                    Deck fresh = compute(user);
+                    // Skip if the deck was evicted while we were computing
+                    Deck old = decks.get(userId);
+                    if (old != null) {
+                        fresh.touch(old.getLastReadAt());
+                        store(userId, fresh);
+                    }
+                }, () -> evict(userId));
+            } catch (Exception e) {
+                log.error("Failed to rebuild recommendation deck for user {}", userId, e);
+            }
+        }
+    }
+
+    private Deck compute(User user) {
+        long now = System.currentTimeMillis();
+        Deck deck = new Deck(List.copyOf(recommendationService.getRecommendations(user)), now);
+        deck.touch(now);
+        return deck;
+    }
+
+    private void store(Long userId, Deck deck) {
+        Deck previous = decks.put(userId, deck);
+        if (previous != null) {
+            unlist(userId, previous.getUserIds());
+        }
+        for (Long candidateId : deck.getUserIds()) {
+            listedIn.computeIfAbsent(candidateId, k -> ConcurrentHashMap.newKeySet()).add(userId);
+        }
+        if (decks.size() > maxEntries) {
+            evictLeastRecentlyRead();
+        }
+    }
+
+    private void remove(Long userId) {
+        Deck previous = decks.remove(userId);
+        if (previous != null) {
+            unlist(userId, previous.getUserIds());
+        }
+    }
+
+    private void unlist(Long userId, List<Long> candidateIds) {
+        for (Long candidateId : candidateIds) {
+            listedIn.computeIfPresent(candidateId, (k, owners) -> {
+                owners.remove(userId);
+                return owners.isEmpty() ? null : owners;
+            });
+        }
+    }
+
+    // Trim to 90% so the sort is paid once per many inserts, not on every one
+    private synchronized void evictLeastRecentlyRead() {
+        if (decks.size() <= maxEntries)
+            return;
+        int target = (int) (maxEntries * 0.9);
+        List<Map.Entry<Long, Deck>> entries = new ArrayList<>(decks.entrySet());
+        entries.sort(Comparator.comparingLong(e -> e.getValue().getLastReadAt()));
+        for (int i = 0; i < entries.size() - target; i++) {
+            evict(entries.get(i).getKey());
+            evictions.incrementAndGet();
+        }
+    }
+
+    public static final class Deck {
+        private final List<Long> userIds;
+        private final long builtAt;
+        private volatile long lastReadAt;
+
+        Deck(List<Long> userIds, long builtAt) {
+            this.userIds = userIds;
+            this.builtAt = builtAt;
+        }
+
+        public List<Long> getUserIds() {
+            return userIds;
+        }
+
+        public long getBuiltAt() {
+            return builtAt;
+        }
+
+        public long getLastReadAt() {
+            return lastReadAt;
+        }
+
+        public long getAgeSeconds() {
+            return (System.currentTimeMillis() - builtAt) / 1000;
+        }
+
+        void touch(long now) {
+            lastReadAt = now;
+        }
+
+        // Not read within the TTL, or never refreshed within it
+        boolean isExpired(long now, long ttlSeconds) {
+            long ttlMillis = ttlSeconds * 1000;
+            return now - lastReadAt > ttlMillis || now - builtAt > ttlMillis;
+        }
+
+        Deck without(Long candidateId) {
+            List<Long> remaining = new ArrayList<>(userIds);
+            remaining.remove(candidateId);
+            Deck deck = new Deck(List.copyOf(remaining), builtAt);
+            deck.touch(lastReadAt);
+            return deck;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package web.match_me.service;
+
+// САМ СЕРВИС РЕКОМЕНДАЦИЙ - scoring over compiled ProfileFeatures.
+// Allocation-free: list overlap is popcount of AND-ed bitsets, string matches are int compares.
+// Produces exactly the scores of the original Profile-based calculateScore.
+public final class ScoringKernel {
+
+    private ScoringKernel() {
+    }
+
+    public static double score(ProfileFeatures p1, ProfileFeatures p2) {
+        double score = 0;
+        // Для каждого типа есть свой СЧЕТ то есть для exp и skills дается по 10
+        // А для музыки и прочего по 5 , тем самым создается более реальный MATCHING ,
+        // иначе он будет удроченным
+
+        // 1 EXPERIENCE (List)
+        score += overlap(p1.getInterestBits(), p2.getInterestBits()) * 10;
+
+        // 2 SKILLS (List)
+        score += overlap(p1.getHobbyBits(), p2.getHobbyBits()) * 10;
+
+        // 3 EDUCATION (String matching)
+        if (isMatch(p1.getMusicCode(), p2.getMusicCode()))
+            score += 5;
+
+        // 4 LANGUAGES
+        if (isMatch(p1.getFoodCode(), p2.getFoodCode()))
+            score += 5;
+
+        // 5 ADITTIONAL CERTIFICATES
+        if (isMatch(p1.getTravelCode(), p2.getTravelCode()))
+            score += 5;
+
+        // Location Proximity , тупо СЧЕТ ведет по расстоянию , ЧЕМ ближе тем больше
+        // СЧЕТ
+        if (p1.hasCoordinates() && p2.hasCoordinates()) {
+            double dist = distanceKm(p1, p2);
+            if (dist < 10)
+                score += 50; // Very close
+            else if (dist < 50)
+                score += 20; // Close-ish
+        }
+
+        return score;
+    }
+
+    // Number of distinct values present in both lists
+    static int overlap(long[] b1, long[] b2) {
+        int words = Math.min(b1.length, b2.length);
+        int count = 0;
+        for (int i = 0; i < words; i++) {
+            count += Long.bitCount(b1[i] & b2[i]);
+        }
+        return count;
+    }
+
+    private static boolean isMatch(int c1, int c2) {
+        return c1 != FeatureDictionary.NO_VALUE && c1 == c2;
+    }
+
+    // AI Математика расстояния использует сферический закон косинусов для
+    // перевода координат (широта/долгота) в километры.
+    // sin/cos of latitude are precomputed per profile; the remaining arithmetic is kept
+    // in the original order so results match bit for bit
+    static double distanceKm(ProfileFeatures p1, ProfileFeatures p2) {
+        double theta = p1.getLongitude() - p2.getLongitude();
+        double dist = p1.getSinLatitude() * p2.getSinLatitude()
+                + p1.getCosLatitude() * p2.getCosLatitude() * Math.cos(Math.toRadians(theta));
+        dist = Math.acos(dist);
+        dist = Math.toDegrees(dist);
+        dist = dist * 60 * 1.1515 * 1.609344;
+        return dist;
+    }
+}
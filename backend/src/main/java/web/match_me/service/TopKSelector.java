@@ -0,0 +1,106 @@
+package web.match_me.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Bounded top-K over primitive (userId, score) pairs.
+// A min-heap keyed on "worst first" keeps the K best seen so far without boxing or full sorts.
+// Ordering is total: higher score wins, equal scores go to the lower user id,
+// so the result does not depend on the order candidates were offered in.
+public final class TopKSelector {
+
+    private final int k;
+    private final long[] ids;
+    private final double[] scores;
+    private int size;
+
+    public TopKSelector(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must not be negative");
+        }
+        this.k = k;
+        this.ids = new long[k];
+        this.scores = new double[k];
+    }
+
+    public void offer(long id, double score) {
+        if (size < k) {
+            ids[size] = id;
+            scores[size] = score;
+            siftUp(size++);
+        } else if (k > 0 && isBetter(id, score, ids[0], scores[0])) {
+            ids[0] = id;
+            scores[0] = score;
+            siftDown(0);
+        }
+    }
+
+    public void merge(TopKSelector other) {
+        for (int i = 0; i < other.size; i++) {
+            offer(other.ids[i], other.scores[i]);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Best first. Empties the selector.
+    public List<Long> drainSortedIds() {
+        long[] sorted = new long[size];
+        for (int i = size - 1; i >= 0; i--) {
+            sorted[i] = ids[0];
+            size--;
+            if (size > 0) {
+                ids[0] = ids[size];
+                scores[0] = scores[size];
+                siftDown(0);
+            }
+        }
+        List<Long> result = new ArrayList<>(sorted.length);
+        for (long id : sorted) {
+            result.add(id);
+        }
+        return result;
+    }
+
+    static boolean isBetter(long id1, double score1, long id2, double score2) {
+        return score1 > score2 || (score1 == score2 && id1 < id2);
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!isBetter(ids[parent], scores[parent], ids[i], scores[i]))
+                break;
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= size)
+                break;
+            int worst = left;
+            int right = left + 1;
+            if (right < size && isBetter(ids[left], scores[left], ids[right], scores[right])) {
+                worst = right;
+            }
+            if (!isBetter(ids[i], scores[i], ids[worst], scores[worst]))
+                break;
+            swap(i, worst);
+            i = worst;
+        }
+    }
+
+    private void swap(int a, int b) {
+        long id = ids[a];
+        ids[a] = ids[b];
+        ids[b] = id;
+        double score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+    }
+}
@@ -0,0 +1,236 @@
+package web.match_me.service;
+
+import java.util.Arrays;
+
+// Compressed set of user ids, roaring-style: ids are split into a 48-bit high key and a
+// 16-bit low part. Sparse chunks keep a sorted char[] of low parts, dense chunks (more than
+// 4096 ids) switch to a 65536-bit bitmap. Not thread-safe; with/without give ExclusionIndex
+// copy-on-write updates that share every chunk but the one they touch.
+public final class UserIdBitmap {
+
+    private static final int ARRAY_MAX = 4096;
+    private static final int BITMAP_WORDS = 1 << 10;
+
+    private long[] keys = new long[0];
+    private Chunk[] chunks = new Chunk[0];
+    private int chunkCount;
+
+    public boolean contains(long id) {
+        int i = Arrays.binarySearch(keys, 0, chunkCount, id >>> 16);
+        return i >= 0 && chunks[i].contains((char) id);
+    }
+
+    public void add(long id) {
+        long key = id >>> 16;
+        int i = Arrays.binarySearch(keys, 0, chunkCount, key);
+        if (i < 0) {
+            i = -i - 1;
+            insertChunk(i, key, new ArrayChunk());
+        }
+        chunks[i] = chunks[i].add((char) id);
+    }
+
+    public void remove(long id) {
+        int i = Arrays.binarySearch(keys, 0, chunkCount, id >>> 16);
+        if (i < 0)
+            return;
+        chunks[i] = chunks[i].remove((char) id);
+        if (chunks[i].cardinality() == 0) {
+            System.arraycopy(keys, i + 1, keys, i, chunkCount - i - 1);
+            System.arraycopy(chunks, i + 1, chunks, i, chunkCount - i - 1);
+            chunks[--chunkCount] = null;
+        }
+    }
+
+    public int cardinality() {
+        int total = 0;
+        for (int i = 0; i < chunkCount; i++) {
+            total += chunks[i].cardinality();
+        }
+        return total;
+    }
+
+    // Approximate retained heap size, for reporting
+    public long sizeInBytes() {
+        long bytes = 16 + 16 + 8L * keys.length + 16 + 4L * chunks.length;
+        for (int i = 0; i < chunkCount; i++) {
+            bytes += chunks[i].sizeInBytes();
+        }
+        return bytes;
+    }
+
+    // New bitmap with id added; this one is left untouched. Costs the chunk index plus one chunk,
+    // not the whole set.
+    public UserIdBitmap with(long id) {
+        if (contains(id))
+            return this;
+        UserIdBitmap next = shareChunks();
+        int i = Arrays.binarySearch(keys, 0, chunkCount, id >>> 16);
+        if (i >= 0)
+            next.chunks[i] = chunks[i].copy();
+        next.add(id);
+        return next;
+    }
+
+    public UserIdBitmap without(long id) {
+        if (!contains(id))
+            return this;
+        UserIdBitmap next = shareChunks();
+        int i = Arrays.binarySearch(keys, 0, chunkCount, id >>> 16);
+        next.chunks[i] = chunks[i].copy();
+        next.remove(id);
+        return next;
+    }
+
+    public UserIdBitmap copy() {
+        UserIdBitmap copy = new UserIdBitmap();
+        copy.keys = Arrays.copyOf(keys, chunkCount);
+        copy.chunks = new Chunk[chunkCount];
+        for (int i = 0; i < chunkCount; i++) {
+            copy.chunks[i] = chunks[i].copy();
+        }
+        copy.chunkCount = chunkCount;
+        return copy;
+    }
+
+    // Own index arrays, chunks shared - callers copy a chunk before changing it
+    private UserIdBitmap shareChunks() {
+        UserIdBitmap next = new UserIdBitmap();
+        next.keys = Arrays.copyOf(keys, chunkCount);
+        next.chunks = Arrays.copyOf(chunks, chunkCount);
+        next.chunkCount = chunkCount;
+        return next;
+    }
+
+    private void insertChunk(int i, long key, Chunk chunk) {
+        if (chunkCount == keys.length) {
+            int capacity = Math.max(4, chunkCount * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            chunks = Arrays.copyOf(chunks, capacity);
+        }
+        System.arraycopy(keys, i, keys, i + 1, chunkCount - i);
+        System.arraycopy(chunks, i, chunks, i + 1, chunkCount - i);
+        keys[i] = key;
+        chunks[i] = chunk;
+        chunkCount++;
+    }
+
+    private interface Chunk {
+        boolean contains(char low);
+
+        // May return a different representation
+        Chunk add(char low);
+
+        Chunk remove(char low);
+
+        int cardinality();
+
+        long sizeInBytes();
+
+        Chunk copy();
+    }
+
+    private static final class ArrayChunk implements Chunk {
+        private char[] values = new char[4];
+        private int size;
+
+        public boolean contains(char low) {
+            return Arrays.binarySearch(values, 0, size, low) >= 0;
+        }
+
+        public Chunk add(char low) {
+            int i = Arrays.binarySearch(values, 0, size, low);
+            if (i >= 0)
+                return this;
+            if (size == ARRAY_MAX) {
+                BitmapChunk bitmap = new BitmapChunk();
+                for (int j = 0; j < size; j++) {
+                    bitmap.add(values[j]);
+                }
+                return bitmap.add(low);
+            }
+            i = -i - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_MAX, size * 2));
+            }
+            System.arraycopy(values, i, values, i + 1, size - i);
+            values[i] = low;
+            size++;
+            return this;
+        }
+
+        public Chunk remove(char low) {
+            int i = Arrays.binarySearch(values, 0, size, low);
+            if (i >= 0) {
+                System.arraycopy(values, i + 1, values, i, size - i - 1);
+                size--;
+            }
+            return this;
+        }
+
+        public int cardinality() {
+            return size;
+        }
+
+        public long sizeInBytes() {
+            return 16 + 16 + 2L * values.length;
+        }
+
+        public Chunk copy() {
+            ArrayChunk copy = new ArrayChunk();
+            copy.values = Arrays.copyOf(values, Math.max(size, 1));
+            copy.size = size;
+            return copy;
+        }
+    }
+
+    private static final class BitmapChunk implements Chunk {
+        private final long[] words = new long[BITMAP_WORDS];
+        private int cardinality;
+
+        public boolean contains(char low) {
+            return (words[low >>> 6] & (1L << low)) != 0;
+        }
+
+        public Chunk add(char low) {
+            long before = words[low >>> 6];
+            words[low >>> 6] = before | (1L << low);
+            if (before != words[low >>> 6])
+                cardinality++;
+            return this;
+        }
+
+        public Chunk remove(char low) {
+            long before = words[low >>> 6];
+            words[low >>> 6] = before & ~(1L << low);
+            if (before != words[low >>> 6])
+                cardinality--;
+            if (cardinality > ARRAY_MAX)
+                return this;
+            ArrayChunk array = new ArrayChunk();
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    array.add((char) (w * 64 + Long.numberOfTrailingZeros(word)));
+                    word &= word - 1;
+                }
+            }
+            return array;
+        }
+
+        public int cardinality() {
+            return cardinality;
+        }
+
+        public long sizeInBytes() {
+            return 16 + 16 + 8L * BITMAP_WORDS;
+        }
+
+        public Chunk copy() {
+            BitmapChunk copy = new BitmapChunk();
+            System.arraycopy(words, 0, copy.words, 0, BITMAP_WORDS);
+            copy.cardinality = cardinality;
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+-- Indexes for windowed dismissal lookups and the batched purge (see RecommendationDismissal).
+-- ddl-auto is off, apply by hand. CONCURRENTLY keeps the table writable while building.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_dismissals_user_dismissed_at
+    ON recommendation_dismissals (user_id, dismissed_at);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_dismissals_dismissed_at
+    ON recommendation_dismissals (dismissed_at);
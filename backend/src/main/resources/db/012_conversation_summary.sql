@@ -0,0 +1,33 @@
+-- Denormalized per-conversation state maintained by ChatService (see ConversationSummary).
+-- ddl-auto is off, apply by hand before deploying.
+CREATE TABLE IF NOT EXISTS conversation_summary (
+    id                   BIGSERIAL PRIMARY KEY,
+    user_low_id          BIGINT NOT NULL,
+    user_high_id         BIGINT NOT NULL,
+    last_message_id      BIGINT,
+    last_sender_id       BIGINT,
+    last_message_at      TIMESTAMP(6),
+    last_message_preview VARCHAR(140),
+    unread_low           BIGINT NOT NULL DEFAULT 0,
+    unread_high          BIGINT NOT NULL DEFAULT 0,
+    CONSTRAINT uk_conversation_summary_pair UNIQUE (user_low_id, user_high_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_conversation_summary_high ON conversation_summary (user_high_id);
+
+-- Backfill from existing history: latest message per pair plus unread counters per side
+INSERT INTO conversation_summary (user_low_id, user_high_id, last_message_id, last_sender_id,
+                                  last_message_at, last_message_preview, unread_low, unread_high)
+SELECT pair.low, pair.high, last.id, last.sender_id, last.timestamp, LEFT(last.content, 140),
+       pair.unread_low, pair.unread_high
+FROM (
+    SELECT LEAST(sender_id, receiver_id)    AS low,
+           GREATEST(sender_id, receiver_id) AS high,
+           MAX(id)                          AS last_id,
+           COUNT(*) FILTER (WHERE NOT is_read AND receiver_id = LEAST(sender_id, receiver_id))    AS unread_low,
+           COUNT(*) FILTER (WHERE NOT is_read AND receiver_id = GREATEST(sender_id, receiver_id)) AS unread_high
+    FROM chat_messages
+    GROUP BY 1, 2
+) pair
+JOIN chat_messages last ON last.id = pair.last_id
+ON CONFLICT (user_low_id, user_high_id) DO NOTHING;
@@ -0,0 +1,24 @@
+-- Canonical (min, max) user pair on connections, unique (see Connection.setPairKey).
+-- ddl-auto is off, apply by hand before deploying.
+ALTER TABLE connections ADD COLUMN IF NOT EXISTS user_low_id BIGINT;
+ALTER TABLE connections ADD COLUMN IF NOT EXISTS user_high_id BIGINT;
+
+UPDATE connections
+SET user_low_id  = LEAST(requester_id, receiver_id),
+    user_high_id = GREATEST(requester_id, receiver_id)
+WHERE user_low_id IS NULL OR user_high_id IS NULL;
+
+-- Remove duplicates left by the old check-then-insert race: keep the ACCEPTED row if any,
+-- otherwise the oldest one
+DELETE FROM connections c
+USING (
+    SELECT id,
+           ROW_NUMBER() OVER (PARTITION BY user_low_id, user_high_id
+                              ORDER BY (status = 'ACCEPTED') DESC, created_at, id) AS rn
+    FROM connections
+) ranked
+WHERE c.id = ranked.id AND ranked.rn > 1;
+
+ALTER TABLE connections ALTER COLUMN user_low_id SET NOT NULL;
+ALTER TABLE connections ALTER COLUMN user_high_id SET NOT NULL;
+ALTER TABLE connections ADD CONSTRAINT uk_connections_pair UNIQUE (user_low_id, user_high_id);
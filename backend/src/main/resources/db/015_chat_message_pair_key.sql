@@ -0,0 +1,13 @@
+-- Canonical (min, max) user pair on chat_messages (see ChatMessage.setPairKey). The
+-- cursor-pagination index over it, uk_chat_messages_pair_seq, comes with the seq column in 019.
+-- ddl-auto is off, apply by hand before deploying.
+ALTER TABLE chat_messages ADD COLUMN IF NOT EXISTS user_low_id BIGINT;
+ALTER TABLE chat_messages ADD COLUMN IF NOT EXISTS user_high_id BIGINT;
+
+UPDATE chat_messages
+SET user_low_id  = LEAST(sender_id, receiver_id),
+    user_high_id = GREATEST(sender_id, receiver_id)
+WHERE user_low_id IS NULL OR user_high_id IS NULL;
+
+ALTER TABLE chat_messages ALTER COLUMN user_low_id SET NOT NULL;
+ALTER TABLE chat_messages ALTER COLUMN user_high_id SET NOT NULL;
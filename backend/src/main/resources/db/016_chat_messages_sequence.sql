@@ -0,0 +1,10 @@
+-- chat_messages ids move from IDENTITY to a sequence allocated in blocks of 50 (pooled-lo),
+-- shared by Hibernate and ChatIngestService. ddl-auto is off, apply by hand before deploying.
+CREATE SEQUENCE IF NOT EXISTS chat_messages_seq INCREMENT BY 50;
+
+SELECT setval('chat_messages_seq', COALESCE((SELECT MAX(id) FROM chat_messages), 0) + 1, false);
+
+-- Keep plain inserts (psql, old app instances during rollout) on the same sequence
+ALTER TABLE chat_messages ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE chat_messages ALTER COLUMN id SET DEFAULT nextval('chat_messages_seq');
+ALTER SEQUENCE chat_messages_seq OWNED BY chat_messages.id;
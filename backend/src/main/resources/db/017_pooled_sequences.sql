@@ -0,0 +1,33 @@
+-- users, profiles, connections and recommendation_dismissals move from IDENTITY to sequences
+-- allocated in blocks of 50 (pooled-lo), which lets Hibernate batch their inserts.
+-- conversation_summary keeps IDENTITY: it is only written by the native upsert.
+-- ddl-auto is off, apply by hand before deploying. Run in one transaction so no row is
+-- inserted between setval and the default switch.
+BEGIN;
+
+CREATE SEQUENCE IF NOT EXISTS users_seq INCREMENT BY 50;
+SELECT setval('users_seq', COALESCE((SELECT MAX(id) FROM users), 0) + 1, false);
+ALTER TABLE users ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE users ALTER COLUMN id SET DEFAULT nextval('users_seq');
+ALTER SEQUENCE users_seq OWNED BY users.id;
+
+CREATE SEQUENCE IF NOT EXISTS profiles_seq INCREMENT BY 50;
+SELECT setval('profiles_seq', COALESCE((SELECT MAX(id) FROM profiles), 0) + 1, false);
+ALTER TABLE profiles ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE profiles ALTER COLUMN id SET DEFAULT nextval('profiles_seq');
+ALTER SEQUENCE profiles_seq OWNED BY profiles.id;
+
+CREATE SEQUENCE IF NOT EXISTS connections_seq INCREMENT BY 50;
+SELECT setval('connections_seq', COALESCE((SELECT MAX(id) FROM connections), 0) + 1, false);
+ALTER TABLE connections ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE connections ALTER COLUMN id SET DEFAULT nextval('connections_seq');
+ALTER SEQUENCE connections_seq OWNED BY connections.id;
+
+CREATE SEQUENCE IF NOT EXISTS recommendation_dismissals_seq INCREMENT BY 50;
+SELECT setval('recommendation_dismissals_seq',
+    COALESCE((SELECT MAX(id) FROM recommendation_dismissals), 0) + 1, false);
+ALTER TABLE recommendation_dismissals ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE recommendation_dismissals ALTER COLUMN id SET DEFAULT nextval('recommendation_dismissals_seq');
+ALTER SEQUENCE recommendation_dismissals_seq OWNED BY recommendation_dismissals.id;
+
+COMMIT;
@@ -0,0 +1,28 @@
+-- Per-side read watermarks on conversation_summary replace chat_messages.is_read.
+-- ddl-auto is off, apply by hand before deploying.
+ALTER TABLE conversation_summary ADD COLUMN IF NOT EXISTS last_read_low_id BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE conversation_summary ADD COLUMN IF NOT EXISTS last_read_high_id BIGINT NOT NULL DEFAULT 0;
+
+-- Watermark = newest message each side has read; unread counters = received messages above it
+UPDATE conversation_summary s
+SET last_read_low_id  = w.read_low,
+    last_read_high_id = w.read_high,
+    unread_low        = w.unread_low,
+    unread_high       = w.unread_high
+FROM (
+    SELECT m.user_low_id, m.user_high_id, r.read_low, r.read_high,
+           COUNT(*) FILTER (WHERE m.receiver_id = m.user_low_id AND m.id > r.read_low)   AS unread_low,
+           COUNT(*) FILTER (WHERE m.receiver_id = m.user_high_id AND m.id > r.read_high) AS unread_high
+    FROM chat_messages m
+    JOIN (
+        SELECT user_low_id, user_high_id,
+               COALESCE(MAX(id) FILTER (WHERE is_read AND receiver_id = user_low_id), 0)  AS read_low,
+               COALESCE(MAX(id) FILTER (WHERE is_read AND receiver_id = user_high_id), 0) AS read_high
+        FROM chat_messages
+        GROUP BY user_low_id, user_high_id
+    ) r ON r.user_low_id = m.user_low_id AND r.user_high_id = m.user_high_id
+    GROUP BY m.user_low_id, m.user_high_id, r.read_low, r.read_high
+) w
+WHERE s.user_low_id = w.user_low_id AND s.user_high_id = w.user_high_id;
+
+ALTER TABLE chat_messages DROP COLUMN IF EXISTS is_read;
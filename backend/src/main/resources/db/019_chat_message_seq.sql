@@ -0,0 +1,32 @@
+-- Per-conversation message seq (see ConversationSeqAllocator) and its per-conversation counter.
+-- ddl-auto is off, apply by hand before deploying.
+ALTER TABLE chat_messages ADD COLUMN IF NOT EXISTS seq BIGINT;
+
+-- Number existing history in its old display order
+UPDATE chat_messages m
+SET seq = n.seq
+FROM (
+    SELECT id, ROW_NUMBER() OVER (PARTITION BY user_low_id, user_high_id ORDER BY timestamp, id) AS seq
+    FROM chat_messages
+) n
+WHERE m.id = n.id AND m.seq IS NULL;
+
+ALTER TABLE chat_messages ALTER COLUMN seq SET NOT NULL;
+
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS uk_chat_messages_pair_seq
+    ON chat_messages (user_low_id, user_high_id, seq);
+ALTER TABLE chat_messages ADD CONSTRAINT uk_chat_messages_pair_seq UNIQUE USING INDEX uk_chat_messages_pair_seq;
+
+CREATE TABLE IF NOT EXISTS conversation_sequences (
+    id           BIGSERIAL PRIMARY KEY,
+    user_low_id  BIGINT NOT NULL,
+    user_high_id BIGINT NOT NULL,
+    reserved     BIGINT NOT NULL,
+    CONSTRAINT uk_conversation_sequences_pair UNIQUE (user_low_id, user_high_id)
+);
+
+INSERT INTO conversation_sequences (user_low_id, user_high_id, reserved)
+SELECT user_low_id, user_high_id, MAX(seq)
+FROM chat_messages
+GROUP BY user_low_id, user_high_id
+ON CONFLICT (user_low_id, user_high_id) DO NOTHING;
@@ -0,0 +1,14 @@
+-- Reconnect replay is keyed by per-conversation seq (see MessageReplayService): the connection
+-- list carries each conversation's last seq to seed the client's cursor, and the replay itself
+-- seeks uk_chat_messages_pair_seq, so it needs no index of its own.
+-- ddl-auto is off, apply by hand before deploying.
+ALTER TABLE conversation_summary ADD COLUMN IF NOT EXISTS last_message_seq BIGINT NOT NULL DEFAULT 0;
+
+UPDATE conversation_summary s
+SET last_message_seq = m.max_seq
+FROM (
+    SELECT user_low_id, user_high_id, MAX(seq) AS max_seq
+    FROM chat_messages
+    GROUP BY user_low_id, user_high_id
+) m
+WHERE s.user_low_id = m.user_low_id AND s.user_high_id = m.user_high_id;
@@ -0,0 +1,6 @@
+-- Last-seen per user, upserted in batches by PresenceService.
+-- ddl-auto is off, apply by hand before deploying.
+CREATE TABLE IF NOT EXISTS user_presence (
+    user_id      BIGINT PRIMARY KEY,
+    last_seen_at TIMESTAMP(6) NOT NULL
+);
@@ -0,0 +1,63 @@
+package web.match_me.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CandidateRankerTest {
+
+    @Test
+    void parallelAndSequentialRankingMatchFullSort() {
+        Random random = new Random(7);
+        ProfileFeatures current = features(0, random);
+        List<ProfileFeatures> candidates = new ArrayList<>();
+        for (int i = 1; i <= 50_000; i++) {
+            candidates.add(features(i, random));
+        }
+        Collections.shuffle(candidates, random);
+
+        List<Long> expected = candidates.stream()
+                .filter(c -> c.getUserId() % 7 != 0)
+                .filter(c -> ScoringKernel.score(current, c) > CandidateRanker.MIN_SCORE)
+                .sorted(Comparator.comparingDouble((ProfileFeatures c) -> ScoringKernel.score(current, c))
+                        .reversed()
+                        .thenComparingLong(ProfileFeatures::getUserId))
+                .limit(25)
+                .map(ProfileFeatures::getUserId)
+                .toList();
+
+        List<Long> sequential = new CandidateRanker(25, Integer.MAX_VALUE)
+                .rank(current, candidates, id -> id % 7 == 0);
+        List<Long> parallel = new CandidateRanker(25, 0)
+                .rank(current, candidates, id -> id % 7 == 0);
+
+        assertThat(sequential).isEqualTo(expected);
+        assertThat(parallel).isEqualTo(expected);
+    }
+
+    @Test
+    void tiesAreBrokenByLowerUserId() {
+        TopKSelector selector = new TopKSelector(3);
+        selector.offer(9, 10);
+        selector.offer(4, 10);
+        selector.offer(7, 20);
+        selector.offer(2, 10);
+        selector.offer(1, 5);
+
+        assertThat(selector.drainSortedIds()).containsExactly(7L, 2L, 4L);
+    }
+
+    // Few distinct values so many candidates share a score
+    private static ProfileFeatures features(long userId, Random random) {
+        return new ProfileFeatures(userId, "SimCity",
+                new long[] { random.nextInt(8) }, new long[] { random.nextInt(4) },
+                random.nextInt(3), random.nextInt(3), random.nextInt(3),
+                40.71 + (random.nextDouble() - 0.5), -74.00 + (random.nextDouble() - 0.5));
+    }
+}
@@ -0,0 +1,174 @@
+package web.match_me.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import web.match_me.entity.ChatMessage;
+import web.match_me.entity.Connection;
+import web.match_me.entity.ConversationSummary;
+import web.match_me.entity.Profile;
+import web.match_me.entity.User;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({ ConnectionListService.class, ProfileService.class })
+class ConnectionListServiceTest {
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ConnectionListService connectionListService;
+
+    @MockitoBean
+    private CandidateIndex candidateIndex;
+
+    private final Map<String, ConversationSummary> summaries = new HashMap<>();
+    private int sequence;
+
+    @Test
+    void statementCountDoesNotGrowWithConnections() {
+        long few = statementsFor(3);
+        long many = statementsFor(40);
+
+        assertThat(many).isEqualTo(few);
+        assertThat(many).isLessThanOrEqualTo(5);
+    }
+
+    @Test
+    void returnsLastMessageAndUnreadCountPerPartner() {
+        User owner = user();
+        User partner = user();
+        User quiet = user();
+        connect(owner, partner);
+        connect(quiet, owner);
+        LocalDateTime t = LocalDateTime.of(2025, 3, 1, 10, 0);
+        message(partner, owner, t, true);
+        message(partner, owner, t.plusMinutes(1), false);
+        message(partner, owner, t.plusMinutes(2), false);
+        message(owner, partner, t.plusMinutes(5), false);
+        em.flush();
+        em.clear();
+
+        List<ConnectionListService.Entry> entries = connectionListService.getConnectionList(owner.getId());
+
+        assertThat(entries).hasSize(2);
+        ConnectionListService.Entry withMessages = entries.stream()
+                .filter(e -> e.getPartner().getId().equals(partner.getId())).findFirst().orElseThrow();
+        assertThat(withMessages.getLastMessageSentAt()).isEqualTo(t.plusMinutes(5));
+        assertThat(withMessages.getUnreadCount()).isEqualTo(2);
+        assertThat(withMessages.getProfile().getInterests()).containsExactly("Java", "SQL");
+
+        ConnectionListService.Entry silent = entries.stream()
+                .filter(e -> e.getPartner().getId().equals(quiet.getId())).findFirst().orElseThrow();
+        assertThat(silent.getLastMessageSentAt()).isNull();
+        assertThat(silent.getUnreadCount()).isZero();
+    }
+
+    private long statementsFor(int connectionCount) {
+        User owner = user();
+        LocalDateTime t = LocalDateTime.of(2025, 1, 1, 0, 0);
+        for (int i = 0; i < connectionCount; i++) {
+            User partner = user();
+            if (i % 2 == 0) {
+                connect(owner, partner);
+            } else {
+                connect(partner, owner);
+            }
+            message(partner, owner, t.plusMinutes(i), false);
+            message(owner, partner, t.plusMinutes(i + 1), false);
+        }
+        em.flush();
+        em.clear();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        List<ConnectionListService.Entry> entries = connectionListService.getConnectionList(owner.getId());
+        // Touch everything the controller serializes
+        for (ConnectionListService.Entry e : entries) {
+            e.getProfile().getInterests().size();
+            e.getProfile().getHobbies().size();
+        }
+        assertThat(entries).hasSize(connectionCount);
+        long statements = statistics.getPrepareStatementCount();
+        em.clear();
+        return statements;
+    }
+
+    private User user() {
+        int n = ++sequence;
+        User user = new User();
+        user.setUsername("user" + n);
+        user.setEmail("user" + n + "@test.local");
+        user.setPassword("x");
+        em.persist(user);
+
+        Profile profile = new Profile();
+        profile.setUser(user);
+        profile.setFirstName("First" + n);
+        profile.setInterests(List.of("Java", "SQL"));
+        profile.setHobbies(List.of("Chess"));
+        em.persist(profile);
+        return user;
+    }
+
+    private void connect(User requester, User receiver) {
+        Connection connection = new Connection();
+        connection.setRequester(requester);
+        connection.setReceiver(receiver);
+        connection.setStatus(Connection.ConnectionStatus.ACCEPTED);
+        connection.setCreatedAt(LocalDateTime.now());
+        em.persist(connection);
+    }
+
+    private void message(User sender, User receiver, LocalDateTime at, boolean read) {
+        ChatMessage message = new ChatMessage();
+        message.setSender(sender);
+        message.setReceiver(receiver);
+        message.setContent("hi");
+        message.setTimestamp(at);
+        // Increasing across the whole test, so increasing within each conversation too
+        message.setSeq((long) ++sequence);
+        em.persist(message);
+
+        // What ChatService.saveMessage maintains - the upsert itself is Postgres-only
+        long low = Math.min(sender.getId(), receiver.getId());
+        long high = Math.max(sender.getId(), receiver.getId());
+        ConversationSummary summary = summaries.computeIfAbsent(low + ":" + high, k -> {
+            ConversationSummary created = new ConversationSummary();
+            created.setUserLowId(low);
+            created.setUserHighId(high);
+            return created;
+        });
+        summary.setLastMessageId(message.getId());
+        summary.setLastSenderId(sender.getId());
+        summary.setLastMessageAt(at);
+        summary.setLastMessagePreview(message.getContent());
+        // read: the receiver's watermark moves up to this message, as ChatService.markMessagesAsRead does
+        if (receiver.getId() == low) {
+            summary.setUnreadLow(read ? 0 : summary.getUnreadLow() + 1);
+            summary.setLastReadLowId(read ? message.getId() : summary.getLastReadLowId());
+        } else {
+            summary.setUnreadHigh(read ? 0 : summary.getUnreadHigh() + 1);
+            summary.setLastReadHighId(read ? message.getId() : summary.getLastReadHighId());
+        }
+        if (summary.getId() == null) {
+            em.persist(summary);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package web.match_me.service;
+
+import org.junit.jupiter.api.Test;
+import web.match_me.entity.Profile;
+import web.match_me.entity.User;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ScoringKernelTest {
+
+    private static final String[] TERMS = { "Coding", "coding", "Hiking", "Gaming", "Cooking", "Reading",
+            "Traveling", "Music", "Art", "Sports", "Movies", "Hobby1", "Hobby2" };
+    private static final String[] SCALARS = { "Rock", "rock", "ROCK", "Jazz", "jazz", "Pizza", "PIZZA",
+            "Beach", "beach", "Straße", "STRASSE", "İstanbul", "istanbul", "" };
+
+    @Test
+    void kernelMatchesOriginalScoreOnRandomProfiles() {
+        Random random = new Random(42);
+        FeatureDictionary dictionary = new FeatureDictionary();
+
+        List<Profile> profiles = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            profiles.add(randomProfile(random, i));
+        }
+        List<ProfileFeatures> compiled = new ArrayList<>();
+        for (Profile p : profiles) {
+            compiled.add(ProfileFeatures.compile(p, dictionary));
+        }
+
+        for (int i = 0; i < profiles.size(); i++) {
+            for (int j = 0; j < profiles.size(); j++) {
+                double expected = originalScore(profiles.get(i), profiles.get(j));
+                double actual = ScoringKernel.score(compiled.get(i), compiled.get(j));
+                assertThat(actual)
+                        .as("score(%d, %d)", i, j)
+                        .isEqualTo(expected);
+            }
+        }
+    }
+
+    @Test
+    void featuresCompiledBeforeDictionaryGrowthStillOverlap() {
+        FeatureDictionary dictionary = new FeatureDictionary();
+        Profile early = profile(1, List.of("Coding"), List.of());
+        ProfileFeatures earlyFeatures = ProfileFeatures.compile(early, dictionary);
+
+        List<String> many = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            many.add("term" + i);
+        }
+        many.add("Coding");
+        ProfileFeatures late = ProfileFeatures.compile(profile(2, many, List.of()), dictionary);
+
+        assertThat(ScoringKernel.overlap(earlyFeatures.getInterestBits(), late.getInterestBits())).isEqualTo(1);
+        assertThat(ScoringKernel.overlap(late.getInterestBits(), earlyFeatures.getInterestBits())).isEqualTo(1);
+    }
+
+    private static Profile randomProfile(Random random, long userId) {
+        Profile p = profile(userId, randomList(random), randomList(random));
+        p.setMusicTaste(randomScalar(random));
+        p.setFoodPreference(randomScalar(random));
+        p.setTravelPreference(randomScalar(random));
+        if (random.nextInt(5) > 0) {
+            // Tight cluster so both distance thresholds (and identical points) are exercised
+            p.setLatitude(40.71 + (random.nextDouble() - 0.5) * (random.nextBoolean() ? 0.1 : 1.0));
+            p.setLongitude(-74.00 + (random.nextDouble() - 0.5) * (random.nextBoolean() ? 0.1 : 1.0));
+            if (random.nextInt(20) == 0) {
+                p.setLatitude(40.71);
+                p.setLongitude(-74.00);
+            }
+        }
+        return p;
+    }
+
+    private static List<String> randomList(Random random) {
+        if (random.nextInt(10) == 0)
+            return null;
+        int size = random.nextInt(5);
+        List<String> list = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            list.add(TERMS[random.nextInt(TERMS.length)]);
+        }
+        return list;
+    }
+
+    private static String randomScalar(Random random) {
+        return random.nextInt(8) == 0 ? null : SCALARS[random.nextInt(SCALARS.length)];
+    }
+
+    private static Profile profile(long userId, List<String> interests, List<String> hobbies) {
+        User user = new User();
+        user.setId(userId);
+        Profile p = new Profile();
+        p.setUser(user);
+        p.setInterests(interests);
+        p.setHobbies(hobbies);
+        return p;
+    }
+
+    // Reference: RecommendationService.calculateScore as it was before the kernel
+    private static double originalScore(Profile p1, Profile p2) {
+        double score = 0;
+        score += originalOverlap(p1.getInterests(), p2.getInterests()) * 10;
+        score += originalOverlap(p1.getHobbies(), p2.getHobbies()) * 10;
+        if (originalMatch(p1.getMusicTaste(), p2.getMusicTaste()))
+            score += 5;
+        if (originalMatch(p1.getFoodPreference(), p2.getFoodPreference()))
+            score += 5;
+        if (originalMatch(p1.getTravelPreference(), p2.getTravelPreference()))
+            score += 5;
+        if (p1.getLatitude() != null && p2.getLatitude() != null) {
+            double dist = originalDistance(p1.getLatitude(), p1.getLongitude(), p2.getLatitude(),
+                    p2.getLongitude());
+            if (dist < 10)
+                score += 50;
+            else if (dist < 50)
+                score += 20;
+        }
+        return score;
+    }
+
+    private static int originalOverlap(List<String> l1, List<String> l2) {
+        if (l1 == null || l2 == null)
+            return 0;
+        Set<String> s1 = new HashSet<>(l1);
+        s1.retainAll(l2);
+        return s1.size();
+    }
+
+    private static boolean originalMatch(String s1, String s2) {
+        return s1 != null && s2 != null && s1.equalsIgnoreCase(s2);
+    }
+
+    private static double originalDistance(double lat1, double lon1, double lat2, double lon2) {
+        double theta = lon1 - lon2;
+        double dist = Math.sin(Math.toRadians(lat1)) * Math.sin(Math.toRadians(lat2))
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.cos(Math.toRadians(theta));
+        dist = Math.acos(dist);
+        dist = Math.toDegrees(dist);
+        dist = dist * 60 * 1.1515 * 1.609344;
+        return dist;
+    }
+}
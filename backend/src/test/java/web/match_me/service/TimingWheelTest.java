@@ -0,0 +1,60 @@
+package web.match_me.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimingWheelTest {
+
+    // Small wheel so delays wrap around it several times
+    private final TimingWheel wheel = new TimingWheel("test-wheel", 5, TimeUnit.MILLISECONDS, 8);
+
+    @AfterEach
+    void stop() {
+        wheel.stop();
+    }
+
+    @Test
+    void firesNotBeforeDeadlineAcrossRounds() throws InterruptedException {
+        CountDownLatch fired = new CountDownLatch(1);
+        long start = System.nanoTime();
+        long[] elapsedMs = new long[1];
+        wheel.schedule(timeout -> {
+            elapsedMs[0] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            fired.countDown();
+        }, 120, TimeUnit.MILLISECONDS);
+
+        assertThat(fired.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(elapsedMs[0]).isGreaterThanOrEqualTo(120);
+        assertThat(wheel.getPendingCount()).isZero();
+    }
+
+    @Test
+    void cancelledTimersNeverRun() throws InterruptedException {
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch kept = new CountDownLatch(1000);
+        List<TimingWheel.Timeout> cancelled = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            if (i % 2 == 0) {
+                cancelled.add(wheel.schedule(timeout -> runs.incrementAndGet(), 200 + i % 50, TimeUnit.MILLISECONDS));
+            } else {
+                wheel.schedule(timeout -> kept.countDown(), 200 + i % 50, TimeUnit.MILLISECONDS);
+            }
+        }
+        for (TimingWheel.Timeout timeout : cancelled) {
+            assertThat(timeout.cancel()).isTrue();
+        }
+
+        assertThat(kept.await(2, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(50);
+        assertThat(runs.get()).isZero();
+        assertThat(wheel.getPendingCount()).isZero();
+    }
+}
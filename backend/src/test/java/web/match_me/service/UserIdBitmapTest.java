@@ -0,0 +1,75 @@
+package web.match_me.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserIdBitmapTest {
+
+    @Test
+    void matchesHashSetAcrossArrayAndBitmapChunks() {
+        Random random = new Random(11);
+        UserIdBitmap bitmap = new UserIdBitmap();
+        Set<Long> expected = new HashSet<>();
+
+        // First chunk goes dense (> 4096 ids), the others stay sparse
+        for (int i = 0; i < 60_000; i++) {
+            long id = random.nextInt(4) == 0 ? random.nextInt(1 << 20) : random.nextInt(1 << 16);
+            if (random.nextInt(5) == 0) {
+                bitmap.remove(id);
+                expected.remove(id);
+            } else {
+                bitmap.add(id);
+                expected.add(id);
+            }
+        }
+        assertMatches(bitmap, expected);
+
+        // Drain the dense chunk back below the array threshold
+        for (long id = 0; id < 1 << 16; id++) {
+            if (id % 20 != 0) {
+                bitmap.remove(id);
+                expected.remove(id);
+            }
+        }
+        assertMatches(bitmap, expected);
+        assertMatches(bitmap.copy(), expected);
+    }
+
+    @Test
+    void withAndWithoutLeaveTheOriginalUntouched() {
+        UserIdBitmap original = new UserIdBitmap();
+        for (long id = 0; id < 5000; id++) {
+            original.add(id * 3);
+        }
+        original.add(1L << 20);
+
+        UserIdBitmap added = original.with(7).with(2L << 20);
+        UserIdBitmap removed = original.without(3).without(1L << 20);
+
+        assertThat(original.contains(7)).isFalse();
+        assertThat(original.contains(2L << 20)).isFalse();
+        assertThat(original.contains(3)).isTrue();
+        assertThat(original.contains(1L << 20)).isTrue();
+        assertThat(original.cardinality()).isEqualTo(5001);
+        assertThat(added.contains(7)).isTrue();
+        assertThat(added.contains(2L << 20)).isTrue();
+        assertThat(added.cardinality()).isEqualTo(5003);
+        assertThat(removed.contains(3)).isFalse();
+        assertThat(removed.contains(1L << 20)).isFalse();
+        assertThat(removed.cardinality()).isEqualTo(4999);
+        assertThat(original.with(3)).isSameAs(original);
+        assertThat(original.without(7)).isSameAs(original);
+    }
+
+    private static void assertMatches(UserIdBitmap bitmap, Set<Long> expected) {
+        assertThat(bitmap.cardinality()).isEqualTo(expected.size());
+        for (long id = 0; id < 1 << 20; id++) {
+            assertThat(bitmap.contains(id)).isEqualTo(expected.contains(id));
+        }
+    }
+}
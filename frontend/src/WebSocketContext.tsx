@@ -1,4 +1,11 @@
-import { createContext, useContext, useEffect, useState, useRef } from "react";
+import {
+  createContext,
+  useCallback,
+  useContext,
+  useEffect,
+  useState,
+  useRef,
+} from "react";
 import type { ReactNode } from "react";
 import { Client } from "@stomp/stompjs";
 import { useAuth } from "./AuthContext";
@@ -6,6 +13,12 @@ import { useAuth } from "./AuthContext";
 interface WebSocketContextType {
   client: Client | null;
   isConnected: boolean;
+  // Everything up to seq in the conversation with partnerId has been loaded (connection list,
+  // history) - call with 0 for a conversation known to be empty
+  seedSeq: (partnerId: number, seq: number) => void;
+  // One message with this seq arrived (live push, replay or own send). The resume cursor only
+  // moves past it once every lower seq has arrived too - seqs have no gaps.
+  noteSeq: (partnerId: number, seq: number) => void;
 }
 
 const WebSocketContext = createContext<WebSocketContextType | undefined>(
@@ -17,6 +30,45 @@ export const WebSocketProvider = ({ children }: { children: ReactNode }) => {
   const [client, setClient] = useState<Client | null>(null);
   const [isConnected, setIsConnected] = useState(false);
   const clientRef = useRef<Client | null>(null);
+  // Per conversation (partner id -> seq), the highest seq with nothing missing below it - the
+  // catch-up cursor after a reconnect. Stays null until the connection list seeds it - no
+  // cursor means fresh client.
+  const lastSeqRef = useRef<Map<number, number> | null>(null);
+  // Seqs that arrived ahead of a missing one, e.g. 6 pushed before 5
+  const aheadSeqsRef = useRef<Map<number, Set<number>>>(new Map());
+
+  // Stable identities - consumers list them in effect deps
+  const advance = useCallback((partnerId: number, from: number) => {
+    const ahead = aheadSeqsRef.current.get(partnerId);
+    let seq = from;
+    while (ahead && ahead.delete(seq + 1)) {
+      seq++;
+    }
+    lastSeqRef.current!.set(partnerId, seq);
+  }, []);
+
+  const seedSeq = useCallback((partnerId: number, seq: number) => {
+    if (!lastSeqRef.current) {
+      lastSeqRef.current = new Map();
+    }
+    const known = lastSeqRef.current.get(partnerId);
+    advance(partnerId, known === undefined ? seq : Math.max(known, seq));
+  }, [advance]);
+
+  const noteSeq = useCallback((partnerId: number, seq: number) => {
+    const known = lastSeqRef.current?.get(partnerId);
+    if (known !== undefined && seq === known + 1) {
+      advance(partnerId, seq);
+    } else if (known === undefined || seq > known) {
+      // Not seeded yet, or a gap below it - hold it until the gap fills
+      let ahead = aheadSeqsRef.current.get(partnerId);
+      if (!ahead) {
+        ahead = new Set();
+        aheadSeqsRef.current.set(partnerId, ahead);
+      }
+      ahead.add(seq);
+    }
+  }, [advance]);
 
   useEffect(() => {
     // Only connect if authorized and have userId and token
@@ -41,6 +93,18 @@ export const WebSocketProvider = ({ children }: { children: ReactNode }) => {
         Authorization: `Bearer ${token}`,
       },
       reconnectDelay: 1000,
+      // Present the resume cursor so the server can replay only what was missed
+      beforeConnect: () => {
+        const headers: Record<string, string> = {
+          Authorization: `Bearer ${token}`,
+        };
+        if (lastSeqRef.current) {
+          headers["resume-after"] = Array.from(lastSeqRef.current)
+            .map(([partnerId, seq]) => `${partnerId}:${seq}`)
+            .join(",");
+        }
+        newClient.connectHeaders = headers;
+      },
       onConnect: () => {
         setIsConnected(true);
       },
@@ -69,7 +133,7 @@ export const WebSocketProvider = ({ children }: { children: ReactNode }) => {
   }, [authorized, userId, token]);
 
   return (
-    <WebSocketContext.Provider value={{ client, isConnected }}>
+    <WebSocketContext.Provider value={{ client, isConnected, seedSeq, noteSeq }}>
       {children}
     </WebSocketContext.Provider>
   );
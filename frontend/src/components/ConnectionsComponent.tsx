@@ -58,11 +58,13 @@ interface Connection {
   lastMessageTime?: number[]; // For sorting
   lastMessageSentAt?: number[] | null; // Last message timestamp from API
   unreadCount?: number;
-  isOnline?: boolean;
+  lastMessageSeq?: number; // Highest seq in the conversation - reconnect cursor seed
+  lastSeenAt?: number[] | null; // Last time the user was connected
 }
 
 interface Message {
   id: number;
+  seq?: number; // Position in the conversation, used as the history cursor
   senderId: number;
   receiverId: number;
   content: string;
@@ -81,6 +83,8 @@ function ConnectionsComponent() {
   const [connections, setConnections] = useState<Connection[]>([]);
   const [messages, setMessages] = useState<Message[]>([]);
   const [selectedFriend, setSelectedFriend] = useState<Connection | null>(null);
+  // Ids of connections that are online right now
+  const [onlineIds, setOnlineIds] = useState<Set<number>>(new Set());
   // Ref to access current selectedFriend inside socket callbacks
   const selectedFriendRef = useRef<Connection | null>(null);
 
@@ -100,7 +104,8 @@ function ConnectionsComponent() {
   >(null);
 
   // Pagination state
-  const [page, setPage] = useState(0);
+  // Seq of the oldest loaded message - cursor for loading older ones
+  const [oldestSeq, setOldestSeq] = useState<number | null>(null);
   const [startOfChatReached, setStartOfChatReached] = useState(false);
   const [isFetchingOldMessages, setIsFetchingOldMessages] = useState(false);
 
@@ -212,52 +217,85 @@ function ConnectionsComponent() {
   );
 
   // WebSocket connection for real-time messages & presence
-  const { client, isConnected } = useWebSocket();
+  const { client, isConnected, seedSeq, noteSeq } = useWebSocket();
+  // Ids already handled - replay after a reconnect can overlap with live delivery
+  const seenMessageIdsRef = useRef<Set<number>>(new Set());
 
   useEffect(() => {
     if (!userId || !client || !isConnected) return;
 
+    const handleIncomingMessage = (receivedMessage: any) => {
+      if (seenMessageIdsRef.current.has(receivedMessage.id)) return;
+      seenMessageIdsRef.current.add(receivedMessage.id);
+      // Replay also returns messages this user sent (e.g. from another tab), so the cursor
+      // sees every seq of the conversation
+      const isOwn = receivedMessage.senderId === userId;
+      if (receivedMessage.seq != null) {
+        noteSeq(
+          isOwn ? receivedMessage.receiverId : receivedMessage.senderId,
+          receivedMessage.seq,
+        );
+      }
+      // Message format is same as REST API - timestamp is array [year, month, day, hour, minute, second, nano]
+      const messageData: Message = {
+        id: receivedMessage.id,
+        seq: receivedMessage.seq,
+        senderId: receivedMessage.senderId,
+        receiverId: receivedMessage.receiverId,
+        content: receivedMessage.content,
+        timestamp: receivedMessage.timestamp,
+        read: false,
+      };
+      // Append message to the list
+      setMessages((prev) =>
+        prev.some((m) => m.id === messageData.id)
+          ? prev
+          : [...prev, messageData],
+      );
+      if (isOwn) return;
+      // Reorder connections - move sender to top
+      setConnections((prev) => {
+        const updated = prev.map((conn) => {
+          if (conn.userId === receivedMessage.senderId) {
+            // If this is the active chat, mark as read immediately (optimistic)
+            const isChatOpen =
+              selectedFriendRef.current?.userId === conn.userId;
+            return {
+              ...conn,
+              lastMessageSentAt: receivedMessage.timestamp,
+              unreadCount: isChatOpen ? 0 : (conn.unreadCount || 0) + 1,
+            };
+          }
+          return conn;
+        });
+        return sortConnections(updated);
+      });
+      // Clear typing indicator - sender finished typing and sent message
+      setIsPartnerTyping(false);
+      if (typingTimeoutRef.current) {
+        clearTimeout(typingTimeoutRef.current);
+      }
+    };
+
     // Subscribe to user's message queue
     const messageSub = client.subscribe(
       `/queue/messages-user${userId}`,
-      (message) => {
-        const receivedMessage = JSON.parse(message.body);
-        // Message format is same as REST API - timestamp is array [year, month, day, hour, minute, second, nano]
-        const messageData: Message = {
-          id: receivedMessage.id,
-          senderId: receivedMessage.senderId,
-          receiverId: receivedMessage.receiverId,
-          content: receivedMessage.content,
-          timestamp: receivedMessage.timestamp,
-          read: false,
-        };
-        // Append message to the list
-        setMessages((prev) => [...prev, messageData]);
-        // Reorder connections - move sender to top
-        setConnections((prev) => {
-          const updated = prev.map((conn) => {
-            if (conn.userId === receivedMessage.senderId) {
-              // If this is the active chat, mark as read immediately (optimistic)
-              const isChatOpen =
-                selectedFriendRef.current?.userId === conn.userId;
-              return {
-                ...conn,
-                lastMessageSentAt: receivedMessage.timestamp,
-                unreadCount: isChatOpen ? 0 : (conn.unreadCount || 0) + 1,
-              };
-            }
-            return conn;
-          });
-          return sortConnections(updated);
-        });
-        // Clear typing indicator - sender finished typing and sent message
-        setIsPartnerTyping(false);
-        if (typingTimeoutRef.current) {
-          clearTimeout(typingTimeoutRef.current);
-        }
-      },
+      (message) => handleIncomingMessage(JSON.parse(message.body)),
     );
 
+    // Catch up on what arrived while disconnected (server uses the per-conversation
+    // resume-after cursor sent on CONNECT). If too much was missed, reload instead.
+    const replaySub = client.subscribe("/app/messages/replay", (message) => {
+      const replay = JSON.parse(message.body);
+      (replay.messages || []).forEach(handleIncomingMessage);
+      if (replay.complete === false) {
+        fetchConnections();
+        if (selectedFriendRef.current) {
+          fetchChatHistory(selectedFriendRef.current.userId);
+        }
+      }
+    });
+
     // Subscribe to typing indicator queue
     const typingSub = client.subscribe(
       `/queue/typing-user${userId}`,
@@ -291,33 +329,29 @@ function ConnectionsComponent() {
       },
     );
 
-    // Subscribe to presence updates
+    // Subscribe to presence updates - batched diffs {online: [ids], offline: [ids]}
     const presenceSub = client.subscribe(
       `/queue/presence-user${userId}`,
       (message) => {
-        const data = JSON.parse(message.body);
-        const { userId: friendId, isOnline } = data;
-
-        setConnections((prev) => {
-          const updated = prev.map((conn) =>
-            conn.userId === friendId ? { ...conn, isOnline } : conn,
-          );
-
-          // Also update selectedFriend if it's the one who changed status
-          if (selectedFriendRef.current?.userId === friendId) {
-            setSelectedFriend((prev) => (prev ? { ...prev, isOnline } : null));
-          }
-
-          return updated;
+        const { online = [], offline = [] } = JSON.parse(message.body);
+        setOnlineIds((prev) => {
+          const next = new Set(prev);
+          online.forEach((id: number) => next.add(id));
+          offline.forEach((id: number) => next.delete(id));
+          return next;
         });
       },
     );
 
+    // Starting state - also after every reconnect, since diffs sent meanwhile were missed
+    fetchPresence();
+
     return () => {
       // Subscriptions are automatically cleaned up when client disconnects/reconnects usually,
       // but strictly good practice to unsubscribe if client persists.
       // With stompjs v5+, unsubscribe is on the subscription object.
       messageSub.unsubscribe();
+      replaySub.unsubscribe();
       typingSub.unsubscribe();
       readSub.unsubscribe();
       presenceSub.unsubscribe();
@@ -326,7 +360,7 @@ function ConnectionsComponent() {
         clearTimeout(typingTimeoutRef.current);
       }
     };
-  }, [userId, client, isConnected, sortConnections]);
+  }, [userId, client, isConnected, sortConnections, noteSeq]);
 
   // Format timestamp array to readable date
   const formatDate = (dateArray: number[]): string => {
@@ -375,6 +409,22 @@ function ConnectionsComponent() {
   };
 
   // Fetch connections (friends) and sort by most recent
+  // Online friends snapshot, kept current by the presence diff frames
+  const fetchPresence = async () => {
+    const token = localStorage.getItem("token");
+    if (!token) return;
+
+    try {
+      const response = await axios.get(
+        "http://localhost:8080/connections/presence",
+        { headers: { Authorization: `Bearer ${token}` } },
+      );
+      setOnlineIds(new Set<number>(response.data.online));
+    } catch (err: any) {
+      // Presence is cosmetic - keep the last known state
+    }
+  };
+
   const fetchConnections = async () => {
     const token = localStorage.getItem("token");
     if (!token) return;
@@ -387,8 +437,13 @@ function ConnectionsComponent() {
         headers: { Authorization: `Bearer ${token}` },
       });
 
+      // Seed the reconnect cursor: counts and previews above cover everything up to these
+      response.data.forEach((conn: Connection) =>
+        seedSeq(conn.userId, conn.lastMessageSeq ?? 0),
+      );
       // Sort and set connections using reusable function
       setConnections(sortConnections(response.data));
+      fetchPresence();
     } catch (err: any) {
       setError("Failed to load connections");
     } finally {
@@ -397,11 +452,15 @@ function ConnectionsComponent() {
   };
 
   // Fetch chat history
-  const fetchChatHistory = async (friendId: number, pageNum: number = 0) => {
+  const fetchChatHistory = async (
+    friendId: number,
+    beforeSeq: number | null = null,
+  ) => {
+    const isFirstPage = beforeSeq === null;
     const token = localStorage.getItem("token");
     if (!token) return;
 
-    if (pageNum === 0) {
+    if (isFirstPage) {
       setLoading(true);
     } else {
       setIsFetchingOldMessages(true);
@@ -413,14 +472,21 @@ function ConnectionsComponent() {
         `http://localhost:8080/messages/${friendId}`,
         {
           headers: { Authorization: `Bearer ${token}` },
-          params: { page: pageNum, size: 20 },
+          params: isFirstPage ? { size: 20 } : { beforeSeq, size: 20 },
         },
       );
 
-      const { messages: newMessages, startOfChatReached: reached } =
-        response.data;
+      const {
+        messages: newMessages,
+        startOfChatReached: reached,
+        oldestSeq: nextOldestSeq,
+        newestSeq,
+      } = response.data;
 
-      if (pageNum === 0) {
+      if (isFirstPage) {
+        if (newestSeq != null) {
+          seedSeq(friendId, newestSeq);
+        }
         setMessages(newMessages);
       } else {
         // Capture scroll height before prepending messages
@@ -433,11 +499,11 @@ function ConnectionsComponent() {
       }
 
       setStartOfChatReached(reached);
-      setPage(pageNum);
+      setOldestSeq(nextOldestSeq ?? null);
     } catch (err: any) {
       setError("Failed to load chat history");
     } finally {
-      if (pageNum === 0) {
+      if (isFirstPage) {
         setLoading(false);
       } else {
         setIsFetchingOldMessages(false);
@@ -537,9 +603,9 @@ function ConnectionsComponent() {
     setSelectedFriend(friend);
     setCurrentView("chat-detail");
     // Reset pagination
-    setPage(0);
+    setOldestSeq(null);
     setStartOfChatReached(false);
-    fetchChatHistory(friend.userId, 0);
+    fetchChatHistory(friend.userId);
 
     // Mark messages as read if there are unread messages
     if (friend.unreadCount && friend.unreadCount > 0) {
@@ -572,7 +638,7 @@ function ConnectionsComponent() {
     setSelectedFriend(null);
     setMessages([]);
     setMessageText("");
-    setPage(0);
+    setOldestSeq(null);
     setStartOfChatReached(false);
     setIsFetchingOldMessages(false);
   };
@@ -590,7 +656,7 @@ function ConnectionsComponent() {
     const { scrollTop } = e.currentTarget;
     if (scrollTop === 0) {
       // User scrolled to top, load next page
-      fetchChatHistory(selectedFriend.userId, page + 1);
+      fetchChatHistory(selectedFriend.userId, oldestSeq);
     }
   };
 
@@ -653,9 +719,20 @@ function ConnectionsComponent() {
         { headers: { Authorization: `Bearer ${token}` } },
       );
 
+      // Own messages count toward the conversation's seq too; a replay that returns this one
+      // again is dropped by id
+      const sent = response.data?.data;
+      if (sent?.id != null) {
+        seenMessageIdsRef.current.add(sent.id);
+      }
+      if (sent?.seq != null) {
+        noteSeq(selectedFriend.userId, sent.seq);
+      }
+
       // Create message from response or construct fallback
       const newMessage: Message = {
         id: response.data?.id || Date.now(),
+        seq: response.data?.data?.seq,
         senderId: response.data?.senderId || 0,
         receiverId: response.data?.receiverId || selectedFriend.userId,
         content: response.data?.content || messageText.trim(), // This is the key fix
@@ -944,7 +1021,7 @@ function ConnectionsComponent() {
                           alignItems: "center",
                           justifyContent: "center",
                           fontSize: "24px",
-                          border: connection.isOnline
+                          border: onlineIds.has(connection.userId)
                             ? "3px solid #77dd77"
                             : "2px solid #dee2e6",
                           overflow: "hidden",
@@ -1055,7 +1132,7 @@ function ConnectionsComponent() {
                   justifyContent: "center",
                   fontSize: "20px",
                   marginRight: "10px",
-                  border: selectedFriend.isOnline
+                  border: onlineIds.has(selectedFriend.userId)
                     ? "3px solid #77dd77"
                     : "2px solid #dee2e6",
                   overflow: "hidden",
@@ -1075,7 +1152,15 @@ function ConnectionsComponent() {
                   "👤"
                 )}
               </div>
-              <h5 className="mb-0">{selectedFriend.username}</h5>
+              <div>
+                <h5 className="mb-0">{selectedFriend.username}</h5>
+                {!onlineIds.has(selectedFriend.userId) &&
+                  selectedFriend.lastSeenAt && (
+                    <small className="text-muted">
+                      Last seen {formatDate(selectedFriend.lastSeenAt)}
+                    </small>
+                  )}
+              </div>
             </div>
             <Button
               variant="outline-secondary"